@@ -0,0 +1,106 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.jasypt.encryption.pbe.config.SimpleStringPBEConfig;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decryption of the encrypted values of a project by <code>read-project-properties</code>, sequentially and in
+ * parallel, for different pool sizes, numbers of key obtention iterations and salt generators.
+ * <p>
+ * With a random salt, every value costs its own key derivation, like in the runs before values with a fixed salt were
+ * decrypted under a single derived key. With the zero salt, the key is derived only once, so the pool size and
+ * parallel decryption hardly matter. The IV generator is fixed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DecryptPropertiesBenchmark {
+
+    private static final String PASSWORD = "super_secret_passw0rd";
+
+    private static final String IV_GENERATOR = "dev.haeusler.mojo.FixedStringIvGenerator";
+
+    @Param({"1", "2", "4"})
+    public int poolSize;
+
+    @Param({"1000", "100000"})
+    public int keyObtentionIteration;
+
+    @Param({"false", "true"})
+    public boolean parallelDecryption;
+
+    @Param({"32"})
+    public int values;
+
+    @Param({"org.jasypt.salt.RandomSaltGenerator", "org.jasypt.salt.ZeroSaltGenerator"})
+    public String saltGenerator;
+
+    private File propertiesFile;
+
+    private MavenProject project;
+
+    private ReadPropertiesMojo mojo;
+
+    @Setup(Level.Trial)
+    public void encrypt() throws IOException {
+        final SimpleStringPBEConfig config = new SimpleStringPBEConfig();
+        config.setAlgorithm("PBEWithHMACSHA512AndAES_256");
+        config.setPoolSize(1);
+        config.setKeyObtentionIterations(keyObtentionIteration);
+        config.setSaltGeneratorClassName(saltGenerator);
+        config.setIvGeneratorClassName(IV_GENERATOR);
+        config.setPassword(PASSWORD);
+
+        final PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
+        encryptor.setConfig(config);
+        final Properties encryptedProperties = new Properties();
+        for (int i = 0; i < values; i++) {
+            encryptedProperties.setProperty("secret" + i, PropertyValueEncryptionUtils.encrypt("value-" + i, encryptor));
+        }
+
+        // only properties loaded from files or URLs are decrypted
+        propertiesFile = File.createTempFile("benchmark", ".properties");
+        try (OutputStream stream = new FileOutputStream(propertiesFile)) {
+            encryptedProperties.store(stream, null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(propertiesFile.toPath());
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        project = new MavenProject();
+        project.getProperties().setProperty("jasypt.encryptor.password", PASSWORD);
+
+        mojo = new ReadPropertiesMojo();
+        mojo.setProject(project);
+        mojo.setFiles(new File[]{propertiesFile});
+        mojo.setPoolSize(poolSize);
+        mojo.setKeyObtentionIteration(keyObtentionIteration);
+        mojo.setSaltGeneratorClassName(saltGenerator);
+        mojo.setIvGeneratorClassName(IV_GENERATOR);
+        mojo.setParallelDecryption(parallelDecryption);
+    }
+
+    @Benchmark
+    public Properties execute() throws MojoExecutionException, MojoFailureException {
+        mojo.execute();
+        return project.getProperties();
+    }
+}
@@ -0,0 +1,63 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and resolving large property files without encrypted values through <code>read-project-properties</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LoadPropertiesBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int entries;
+
+    @Param({"false", "true"})
+    public boolean memoizedResolution;
+
+    private File file;
+
+    private MavenProject project;
+
+    private ReadPropertiesMojo mojo;
+
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        file = File.createTempFile("benchmark", ".properties");
+        file.deleteOnExit();
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.ISO_8859_1)) {
+            writer.write("base.url=https://localhost:8443/\n");
+            for (int i = 0; i < entries; i++) {
+                writer.write("# property " + i + "\n");
+                writer.write("key" + i + "=${base.url}resource/" + i + "\n");
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        project = new MavenProject();
+        project.getProperties().setProperty("jasypt.encryptor.password", "super_secret_passw0rd");
+
+        mojo = new ReadPropertiesMojo();
+        mojo.setProject(project);
+        mojo.setFiles(new File[]{file});
+        mojo.setMemoizedResolution(memoizedResolution);
+    }
+
+    @Benchmark
+    public Properties execute() throws MojoExecutionException, MojoFailureException {
+        mojo.execute();
+        return project.getProperties();
+    }
+}
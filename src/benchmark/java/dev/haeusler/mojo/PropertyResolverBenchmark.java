@@ -0,0 +1,66 @@
+package dev.haeusler.mojo;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of deep (a chain of placeholders) and wide (many properties referencing a common base) placeholder
+ * graphs, one key at a time and all keys at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PropertyResolverBenchmark {
+
+    @Param({"deep", "wide"})
+    public String shape;
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private final PropertyResolver resolver = new PropertyResolver();
+
+    private final Properties environment = new Properties();
+
+    private Properties properties;
+
+    @Setup
+    public void setUp() {
+        properties = new Properties();
+        if ("deep".equals(shape)) {
+            for (int i = 0; i < size; i++) {
+                properties.setProperty("p" + i, "segment-" + i + "/${p" + (i + 1) + "}");
+            }
+            properties.setProperty("p" + size, "end");
+        } else {
+            properties.setProperty("base.url", "https://${host}:${port}/");
+            properties.setProperty("host", "localhost");
+            properties.setProperty("port", "8443");
+            for (int i = 0; i < size; i++) {
+                properties.setProperty("p" + i, "${base.url}resource-" + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public String getPropertyValue() {
+        return resolver.getPropertyValue("p0", properties, environment);
+    }
+
+    @Benchmark
+    public int getPropertyValueOfEveryKey() {
+        int length = 0;
+        for (String key : properties.stringPropertyNames()) {
+            length += resolver.getPropertyValue(key, properties, environment).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public Map<String, String> getPropertyValues() {
+        return resolver.getPropertyValues(properties, environment);
+    }
+}
@@ -1,10 +1,16 @@
 package dev.haeusler.mojo;
 
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.jasypt.encryption.StringEncryptor;
 import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
 import org.jasypt.encryption.pbe.config.SimpleStringPBEConfig;
 
+import javax.crypto.SecretKey;
+import java.io.File;
+
 abstract class AbstractJasyptMojo extends AbstractMojo {
 
     /**
@@ -17,10 +23,19 @@ abstract class AbstractJasyptMojo extends AbstractMojo {
     private String algorithm = "PBEWithHMACSHA512AndAES_256";
 
     /**
-     * Sets the size of the pool of encryptors to be created.
+     * Sets the size of the pool of encryptors to be created, or <code>auto</code> to size it from the number of
+     * encrypted values, the available processors and the number of threads of the build (<code>-T</code>).
      */
     @Parameter(property = "poolSize", defaultValue = "2")
-    private int poolSize = 2;
+    private String poolSize = "2";
+
+    /**
+     * The size of the pool of encryptors, <code>0</code> until sized.
+     */
+    private int sizedPoolSize;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
 
     /**
      * Sets the number of hashing iterations applied to obtain the encryption key.
@@ -57,21 +72,212 @@ abstract class AbstractJasyptMojo extends AbstractMojo {
     @Parameter(property = "stringOutputType", defaultValue = "base64")
     private String stringOutputType = "base64";
 
+    /**
+     * Sets a file holding an AES key of 128, 192 or 256 bits, as raw bytes or in base64 form. Values are then
+     * encrypted with AES-GCM under this key instead of a key derived from the password, and the algorithm, key
+     * obtention, salt and IV settings do not apply.
+     */
+    @Parameter(property = "keyFile")
+    private File keyFile = null;
+
+    /**
+     * Sets a keystore holding the AES key, like <code>keyFile</code>. The keystore and the key are unlocked with the
+     * password.
+     */
+    @Parameter(property = "keyStore")
+    private File keyStore = null;
+
+    /**
+     * Sets the type of the keystore.
+     */
+    @Parameter(property = "keyStoreType", defaultValue = "PKCS12")
+    private String keyStoreType = "PKCS12";
+
+    /**
+     * Sets the alias of the key in the keystore.
+     */
+    @Parameter(property = "keyAlias", defaultValue = "jasypt")
+    private String keyAlias = "jasypt";
+
+    /**
+     * Builds an encryptor for the given password, or for the key of the key file or keystore if set.
+     *
+     * @param password the password
+     * @return the encryptor
+     */
+    protected StringEncryptor buildEncryptor(String password) {
+        if (usesKeyFile()) {
+            return buildKeyFileEncryptor(password);
+        }
+        final PooledPBEStringEncryptor encryptor = buildEncryptor();
+        encryptor.setPassword(password);
+        return encryptor;
+    }
+
     protected PooledPBEStringEncryptor buildEncryptor() {
+        final JfrEvents.BuildEncryptor event = new JfrEvents.BuildEncryptor();
+        event.begin();
         final PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
+        encryptor.setConfig(buildConfig());
+        commit(event, false);
+        return encryptor;
+    }
 
+    /**
+     * Builds an encryptor for decrypting many values. With a fixed salt, the key is derived only once instead of once
+     * per value.
+     *
+     * @param password the password
+     * @return the encryptor
+     */
+    protected StringEncryptor buildDecryptor(String password) {
+        if (usesKeyFile()) {
+            return buildKeyFileEncryptor(password);
+        }
+        final JfrEvents.BuildEncryptor event = new JfrEvents.BuildEncryptor();
+        event.begin();
+        final SimpleStringPBEConfig config = buildConfig();
+        final PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
+        encryptor.setConfig(config);
+        encryptor.setPassword(password);
+        final StringEncryptor decryptor = FixedSaltStringEncryptor.create(config, password, encryptor);
+        commit(event, decryptor != encryptor);
+        return decryptor;
+    }
+
+    private StringEncryptor buildKeyFileEncryptor(String password) {
+        final SecretKey key = keyFile != null
+                ? KeyFileStringEncryptor.readKeyFile(keyFile)
+                : KeyFileStringEncryptor.readKeyStore(keyStore, keyStoreType, keyAlias, password);
+        return new KeyFileStringEncryptor(key, stringOutputType);
+    }
+
+    /**
+     * @return <code>true</code> if values are encrypted under the key of a key file or keystore instead of a key
+     * derived from the password
+     */
+    protected boolean usesKeyFile() {
+        return keyFile != null || keyStore != null;
+    }
+
+    private void commit(JfrEvents.BuildEncryptor event, boolean fixedSalt) {
+        event.algorithm = algorithm;
+        event.poolSize = getPoolSize();
+        event.keyObtentionIterations = keyObtentionIteration;
+        event.fixedSalt = fixedSalt;
+        event.commit();
+    }
+
+    /**
+     * @return the encryptor configuration, without a password
+     */
+    protected SimpleStringPBEConfig buildConfig() {
         final SimpleStringPBEConfig config = new SimpleStringPBEConfig();
         config.setAlgorithm(algorithm);
-        config.setPoolSize(poolSize);
+        config.setPoolSize(getPoolSize());
         config.setKeyObtentionIterations(keyObtentionIteration);
         config.setProviderClassName(providerClassName);
         config.setSaltGeneratorClassName(saltGeneratorClassName);
         config.setIvGeneratorClassName(ivGeneratorClassName);
         config.setStringOutputType(stringOutputType);
+        return config;
+    }
 
-        encryptor.setConfig(config);
+    /**
+     * Describes everything that affects the result of a decryption except for the password, e.g. for caching
+     * decrypted values.
+     *
+     * @return the encryptor configuration as a string
+     */
+    protected String describeEncryptor() {
+        if (usesKeyFile()) {
+            return "keyFile=" + (keyFile != null ? keyFile.getAbsolutePath() : null)
+                    + ";keyStore=" + (keyStore != null ? keyStore.getAbsolutePath() : null)
+                    + ";keyStoreType=" + keyStoreType
+                    + ";keyAlias=" + keyAlias
+                    + ";stringOutputType=" + stringOutputType;
+        }
+        return "algorithm=" + algorithm
+                + ";keyObtentionIteration=" + keyObtentionIteration
+                + ";providerClassName=" + providerClassName
+                + ";saltGeneratorClassName=" + saltGeneratorClassName
+                + ";ivGeneratorClassName=" + ivGeneratorClassName
+                + ";stringOutputType=" + stringOutputType;
+    }
 
-        return encryptor;
+    /**
+     * @return the number of hashing iterations applied to obtain the encryption key.
+     */
+    protected int getKeyObtentionIteration() {
+        return keyObtentionIteration;
+    }
+
+    /**
+     * @return the size of the pool of encryptors to be created.
+     */
+    protected int getPoolSize() {
+        if (sizedPoolSize == 0) {
+            sizePool(Integer.MAX_VALUE);
+        }
+        return sizedPoolSize;
+    }
+
+    /**
+     * Sizes the pool of encryptors. In <code>auto</code> mode, the pool gets one encryptor per value, but no more than
+     * the available processors divided by the number of threads of the build, since modules of a parallel build
+     * decrypt at the same time.
+     *
+     * @param values the number of values to be encrypted or decrypted, {@link Integer#MAX_VALUE} if unknown
+     */
+    protected void sizePool(int values) {
+        if (!"auto".equalsIgnoreCase(poolSize.trim())) {
+            sizedPoolSize = parsePoolSize();
+            return;
+        }
+
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int threads = session != null && session.getRequest() != null
+                ? Math.max(1, session.getRequest().getDegreeOfConcurrency())
+                : 1;
+        sizedPoolSize = Math.max(1, Math.min(values, processors / threads));
+        getLog().info("Sized the pool to " + sizedPoolSize + " encryptors for "
+                + (values == Integer.MAX_VALUE ? "an unknown number of" : String.valueOf(values)) + " values, "
+                + processors + " processors and " + threads + " build threads");
+    }
+
+    /**
+     * Checks that <code>poolSize</code> is a positive number or <code>auto</code>.
+     *
+     * @throws MojoExecutionException if it is neither
+     */
+    protected void checkPoolSize() throws MojoExecutionException {
+        if (!"auto".equalsIgnoreCase(poolSize.trim())) {
+            try {
+                parsePoolSize();
+            } catch (IllegalArgumentException e) {
+                throw new MojoExecutionException(e.getMessage(), e);
+            }
+        }
+    }
+
+    private int parsePoolSize() {
+        final int size;
+        try {
+            size = Integer.parseInt(poolSize.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("poolSize has to be a number or auto: " + poolSize);
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("poolSize has to be at least 1: " + poolSize);
+        }
+        return size;
+    }
+
+    /**
+     * @return the Maven session, <code>null</code> outside of a build
+     */
+    protected MavenSession getSession() {
+        return session;
     }
 
     /**
@@ -86,13 +292,33 @@ abstract class AbstractJasyptMojo extends AbstractMojo {
         this.algorithm = algorithm;
     }
 
+    /**
+     * Sets the size of the pool of encryptors to be created.
+     *
+     * @param poolSize the size of the pool to be used if this configuration is used with a pooled encryptor, or
+     *                 <code>auto</code> to size it from the values, processors and build threads
+     */
+    public void setPoolSize(String poolSize) {
+        this.poolSize = poolSize;
+        this.sizedPoolSize = 0;
+    }
+
     /**
      * Sets the size of the pool of encryptors to be created.
      *
      * @param poolSize the size of the pool to be used if this configuration is used with a pooled encryptor
      */
     public void setPoolSize(int poolSize) {
-        this.poolSize = poolSize;
+        setPoolSize(String.valueOf(poolSize));
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param session The test session.
+     */
+    void setSession(MavenSession session) {
+        this.session = session;
     }
 
     /**
@@ -144,4 +370,41 @@ abstract class AbstractJasyptMojo extends AbstractMojo {
     public void setStringOutputType(String stringOutputType) {
         this.stringOutputType = stringOutputType;
     }
+
+    /**
+     * Sets a file holding an AES key, as raw bytes or in base64 form, to be used instead of a key derived from the
+     * password.
+     *
+     * @param keyFile the key file.
+     */
+    public void setKeyFile(File keyFile) {
+        this.keyFile = keyFile;
+    }
+
+    /**
+     * Sets a keystore holding the AES key, to be used instead of a key derived from the password.
+     *
+     * @param keyStore the keystore.
+     */
+    public void setKeyStore(File keyStore) {
+        this.keyStore = keyStore;
+    }
+
+    /**
+     * Sets the type of the keystore.
+     *
+     * @param keyStoreType the keystore type, e.g. PKCS12.
+     */
+    public void setKeyStoreType(String keyStoreType) {
+        this.keyStoreType = keyStoreType;
+    }
+
+    /**
+     * Sets the alias of the key in the keystore.
+     *
+     * @param keyAlias the alias.
+     */
+    public void setKeyAlias(String keyAlias) {
+        this.keyAlias = keyAlias;
+    }
 }
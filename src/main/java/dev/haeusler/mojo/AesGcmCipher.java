@@ -0,0 +1,102 @@
+package dev.haeusler.mojo;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * Authenticated AES-GCM encryption of single values with a random nonce per value, under a key that only has to be
+ * obtained once for any number of values.
+ */
+class AesGcmCipher {
+
+    private static final String KEY_DERIVATION_ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final int KEY_SIZE_BITS = 256;
+
+    private static final int NONCE_SIZE_BYTES = 12;
+
+    private static final int TAG_SIZE_BITS = 128;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SecretKey key;
+
+    /**
+     * @param key the AES key
+     */
+    AesGcmCipher(SecretKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Derives an AES key from a password.
+     *
+     * @param password   the password
+     * @param salt       the salt
+     * @param iterations the number of hashing iterations
+     * @return the derived key
+     * @throws GeneralSecurityException if the key could not be derived
+     */
+    static SecretKey deriveKey(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        final PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, KEY_SIZE_BITS);
+        try {
+            final byte[] key = SecretKeyFactory.getInstance(KEY_DERIVATION_ALGORITHM).generateSecret(spec).getEncoded();
+            return new SecretKeySpec(key, "AES");
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * @param size the number of bytes
+     * @return random bytes, e.g. for a salt
+     */
+    static byte[] randomBytes(int size) {
+        final byte[] bytes = new byte[size];
+        RANDOM.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * @param plaintext the data to be encrypted
+     * @param aad       additional data which has to be presented again for decryption
+     * @return the nonce followed by the ciphertext and the authentication tag
+     * @throws GeneralSecurityException if the data could not be encrypted
+     */
+    public byte[] encrypt(byte[] plaintext, byte[] aad) throws GeneralSecurityException {
+        final byte[] nonce = randomBytes(NONCE_SIZE_BYTES);
+        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE_BITS, nonce));
+        cipher.updateAAD(aad);
+
+        final ByteBuffer result = ByteBuffer.allocate(NONCE_SIZE_BYTES + cipher.getOutputSize(plaintext.length));
+        result.put(nonce);
+        result.put(cipher.doFinal(plaintext));
+        return result.array();
+    }
+
+    /**
+     * @param encrypted the nonce followed by the ciphertext and the authentication tag
+     * @param aad       the additional data presented for encryption
+     * @return the decrypted data
+     * @throws GeneralSecurityException if the data could not be decrypted or was not authentic
+     */
+    public byte[] decrypt(byte[] encrypted, byte[] aad) throws GeneralSecurityException {
+        if (encrypted.length < NONCE_SIZE_BYTES) {
+            throw new GeneralSecurityException("Encrypted data is too short");
+        }
+        final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_SIZE_BITS, encrypted, 0, NONCE_SIZE_BYTES));
+        cipher.updateAAD(aad);
+        return cipher.doFinal(encrypted, NONCE_SIZE_BYTES, encrypted.length - NONCE_SIZE_BYTES);
+    }
+}
@@ -19,48 +19,74 @@ package dev.haeusler.mojo;
  * under the License.
  */
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
+/**
+ * Tracks the path of properties currently being expanded. A property is circularly defined when it is visited again
+ * while its own expansion is still in progress. The path is kept in plain arrays and only turned into a description
+ * when a circular definition is actually found, so an instance can be reset and reused for any number of expansions.
+ */
 class CircularDefinitionPreventer {
-    private final List<VisitedProperty> entriesVisited = new LinkedList<>();
+    private String[] keys = new String[8];
+    private String[] values = new String[8];
+    private int depth;
     private final Set<String> keysUsed = new HashSet<>();
 
     /**
+     * Adds a property to the end of the current path.
+     *
      * @param key   The key.
      * @param value The values.
      * @return {@link CircularDefinitionPreventer}
+     * @throws IllegalArgumentException if the property is already on the current path
      */
     public CircularDefinitionPreventer visited(String key, String value) {
-        entriesVisited.add(new VisitedProperty(key, value));
-        if (keysUsed.contains(key)) {
-            circularDefinition();
-        } else {
-            keysUsed.add(key);
+        if (!keysUsed.add(key)) {
+            throw new IllegalArgumentException(describeCycle(key, value));
+        }
+        if (depth == keys.length) {
+            keys = Arrays.copyOf(keys, depth * 2);
+            values = Arrays.copyOf(values, depth * 2);
         }
+        keys[depth] = key;
+        values[depth] = value;
+        depth++;
 
         return this;
     }
 
-    private void circularDefinition() {
-        StringBuilder buffer = new StringBuilder("Circular property definition: ");
-        for (Iterator<?> iterator = entriesVisited.iterator(); iterator.hasNext(); ) {
-            VisitedProperty visited = (VisitedProperty) iterator.next();
-            buffer.append(visited.key).append("=").append(visited.value);
-            if (iterator.hasNext()) {
-                buffer.append(" -> ");
-            }
-        }
-        throw new IllegalArgumentException(buffer.toString());
+    /**
+     * Removes the most recently visited property from the current path, once it has been fully expanded.
+     */
+    public void left() {
+        depth--;
+        keysUsed.remove(keys[depth]);
+        keys[depth] = null;
+        values[depth] = null;
     }
 
-    private static class VisitedProperty {
-        private final String key;
+    /**
+     * Clears the current path, so the instance can be reused.
+     */
+    public void reset() {
+        Arrays.fill(keys, 0, depth, null);
+        Arrays.fill(values, 0, depth, null);
+        depth = 0;
+        keysUsed.clear();
+    }
 
-        private final String value;
+    private String describeCycle(String key, String value) {
+        int start = depth - 1;
+        while (start > 0 && !keys[start].equals(key)) {
+            start--;
+        }
 
-        private VisitedProperty(String key, String value) {
-            this.key = key;
-            this.value = value;
+        StringBuilder buffer = new StringBuilder("Circular property definition: ");
+        for (int i = start; i < depth; i++) {
+            buffer.append(keys[i]).append("=").append(values[i]).append(" -> ");
         }
+        return buffer.append(key).append("=").append(value).toString();
     }
 }
@@ -1,11 +1,14 @@
 package dev.haeusler.mojo;
 
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.jasypt.encryption.StringEncryptor;
 import org.jasypt.properties.PropertyValueEncryptionUtils;
 
+import java.security.GeneralSecurityException;
+
 @Mojo(name = "decrypt", defaultPhase = LifecyclePhase.NONE, requiresProject = false)
 public class DecryptPropertyMojo extends AbstractJasyptMojo {
 
@@ -21,15 +24,38 @@ public class DecryptPropertyMojo extends AbstractJasyptMojo {
     @Parameter(required = true, defaultValue = "${encryptedValue}")
     protected String encryptedValue;
 
+    /**
+     * The value of the <code>jasypt.envelope</code> header of the file the value was taken from, required for
+     * decrypting GCM(...) values.
+     */
+    @Parameter(defaultValue = "${envelopeHeader}")
+    protected String envelopeHeader;
+
     @Override
-    public void execute() {
-        final PooledPBEStringEncryptor encryptor = buildEncryptor();
-        encryptor.setPassword(jasyptEncryptorPassword);
+    public void execute() throws MojoExecutionException {
+        checkPoolSize();
+        if (PropertyEnvelope.isEnvelopeValue(encryptedValue)) {
+            getLog().info("\n" + decryptEnvelopeValue());
+            return;
+        }
+
+        final StringEncryptor encryptor = buildEncryptor(jasyptEncryptorPassword);
 
         final String decryptedValue = PropertyValueEncryptionUtils.decrypt(encryptedValue, encryptor);
         getLog().info("\n" + decryptedValue);
     }
 
+    private String decryptEnvelopeValue() throws MojoExecutionException {
+        if (envelopeHeader == null || envelopeHeader.isEmpty()) {
+            throw new MojoExecutionException("Set envelopeHeader to decrypt " + encryptedValue);
+        }
+        try {
+            return PropertyEnvelope.parse(envelopeHeader, jasyptEncryptorPassword).decrypt(encryptedValue);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new MojoExecutionException("Cannot decrypt " + encryptedValue, e);
+        }
+    }
+
     /**
      * Sets the password to be used for decryption.
      *
@@ -47,4 +73,13 @@ public class DecryptPropertyMojo extends AbstractJasyptMojo {
     public void setEncryptedValue(String encryptedValue) {
         this.encryptedValue = encryptedValue;
     }
+
+    /**
+     * The value of the <code>jasypt.envelope</code> header of the file the value was taken from.
+     *
+     * @param envelopeHeader the envelope header.
+     */
+    public void setEnvelopeHeader(String envelopeHeader) {
+        this.envelopeHeader = envelopeHeader;
+    }
 }
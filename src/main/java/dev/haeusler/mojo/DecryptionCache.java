@@ -0,0 +1,84 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.SessionData;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Remembers decrypted values for the duration of a Maven session, so that every module of a reactor decrypting the
+ * same value with the same encryptor configuration only pays for the key derivation once.
+ * <p>
+ * Only JDK types are stored in the session, which keeps the cache usable across plugin class realms.
+ */
+class DecryptionCache {
+
+    private static final String SESSION_KEY = DecryptionCache.class.getName();
+
+    private final ConcurrentMap<String, CompletableFuture<String>> values;
+
+    private final String configuration;
+
+    /**
+     * @param values        the decrypted values, shared by all caches of a session
+     * @param configuration the encryptor configuration, including the password
+     */
+    DecryptionCache(ConcurrentMap<String, CompletableFuture<String>> values, String configuration) {
+        this.values = values;
+        this.configuration = Digests.sha256Hex(configuration);
+    }
+
+    /**
+     * @param session       the current session
+     * @param configuration the encryptor configuration, including the password
+     * @return a cache backed by the values decrypted so far in the given session
+     */
+    static DecryptionCache forSession(MavenSession session, String configuration) {
+        final SessionData data = session.getRepositorySession().getData();
+        ConcurrentMap<String, CompletableFuture<String>> values = sessionValues(data);
+        while (values == null) {
+            data.set(SESSION_KEY, null, new ConcurrentHashMap<String, CompletableFuture<String>>());
+            values = sessionValues(data);
+        }
+        return new DecryptionCache(values, configuration);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<String, CompletableFuture<String>> sessionValues(SessionData data) {
+        return (ConcurrentMap<String, CompletableFuture<String>>) data.get(SESSION_KEY);
+    }
+
+    /**
+     * Returns the cached value or decrypts it. Concurrent requests for the same value wait for a single decryption.
+     *
+     * @param encryptedValue the value surrounded by ENC(...)
+     * @param decryption     decrypts the value when it is not cached yet
+     * @return the decrypted value
+     */
+    public String decrypt(String encryptedValue, UnaryOperator<String> decryption) {
+        final String key = configuration + ':' + encryptedValue;
+        final CompletableFuture<String> created = new CompletableFuture<>();
+        final CompletableFuture<String> existing = values.putIfAbsent(key, created);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+
+        try {
+            final String value = decryption.apply(encryptedValue);
+            created.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            values.remove(key, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+}
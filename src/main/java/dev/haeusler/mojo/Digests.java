@@ -0,0 +1,87 @@
+package dev.haeusler.mojo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 digests in hexadecimal form, e.g. for naming cache entries.
+ */
+class Digests {
+
+    private Digests() {
+    }
+
+    /**
+     * @return a new SHA-256 message digest
+     */
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param value the value to be digested
+     * @return the SHA-256 digest of the UTF-8 encoded value in hexadecimal form
+     */
+    static String sha256Hex(String value) {
+        return toHex(sha256().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param file the file to be digested
+     * @return the SHA-256 digest of the content of the file in hexadecimal form
+     * @throws IOException if the file could not be read
+     */
+    static String sha256Hex(File file) throws IOException {
+        final MessageDigest digest = sha256();
+        final byte[] buffer = new byte[8192];
+        try (InputStream stream = new FileInputStream(file)) {
+            int read;
+            while ((read = stream.read(buffer)) >= 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * @param bytes the bytes to be converted
+     * @return the bytes in lower case hexadecimal form
+     */
+    static String toHex(byte[] bytes) {
+        final StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @param hex bytes in hexadecimal form
+     * @return the bytes
+     * @throws IllegalArgumentException if the value is not in hexadecimal form
+     */
+    static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Odd number of hexadecimal digits");
+        }
+        final byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            final int high = Character.digit(hex.charAt(2 * i), 16);
+            final int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hexadecimal digit");
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+}
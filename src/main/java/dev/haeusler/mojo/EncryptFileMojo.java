@@ -0,0 +1,163 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encrypts every value of the given property files that is marked for encryption by surrounding it with DEC(...), and
+ * writes the files back in place. Comments, ordering and formatting of the files are preserved.
+ */
+@Mojo(name = "encrypt-file", defaultPhase = LifecyclePhase.NONE, requiresProject = false)
+public class EncryptFileMojo extends AbstractJasyptMojo {
+
+    private static final String DECRYPTED_VALUE_PREFIX = "DEC(";
+
+    private static final String DECRYPTED_VALUE_SUFFIX = ")";
+
+    /**
+     * Sets the password to be used for encryption.
+     */
+    @Parameter(required = true, defaultValue = "${jasyptEncryptorPassword}")
+    private String jasyptEncryptorPassword;
+
+    /**
+     * The property files containing values to be encrypted.
+     */
+    @Parameter(required = true, property = "files")
+    private File[] files;
+
+    /**
+     * Encrypts the values into GCM(...) values under a single key per file instead of ENC(...) values, see
+     * <code>jasypt.envelope</code>. Decrypting such a file costs only one key derivation, regardless of the number
+     * of values.
+     */
+    @Parameter(property = "envelope", defaultValue = "false")
+    private boolean envelope;
+
+    /**
+     * The envelope for files without an envelope header, shared so that the key is derived only once.
+     */
+    private PropertyEnvelope newEnvelope;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        checkPoolSize();
+        final StringEncryptor encryptor = buildEncryptor(jasyptEncryptorPassword);
+
+        for (File file : files) {
+            try {
+                final PropertiesFile propertiesFile = PropertiesFile.read(file);
+                for (Map.Entry<Integer, String> entry : propertiesFile.continuedEntries().entrySet()) {
+                    if (entry.getValue().contains(DECRYPTED_VALUE_PREFIX)) {
+                        throw new MojoExecutionException("Values continued on the next line cannot be encrypted, "
+                                + "join the lines of the entry in line " + entry.getKey() + " of " + file);
+                    }
+                }
+
+                final List<String> decryptedValues = new ArrayList<>();
+                for (String value : propertiesFile.values()) {
+                    if (isDecryptedValue(value)) {
+                        decryptedValues.add(value);
+                    }
+                }
+                if (decryptedValues.isEmpty()) {
+                    getLog().info("No values to encrypt in " + file);
+                    continue;
+                }
+
+                // each occurrence is encrypted on its own, so that equal values do not get equal encrypted values
+                final Iterator<String> encryptedValues = (envelope
+                        ? encryptIntoEnvelope(propertiesFile, decryptedValues)
+                        : new ParallelMapper(getPoolSize()).mapEach(decryptedValues,
+                        value -> PropertyValueEncryptionUtils.encrypt(unwrap(value), encryptor))).iterator();
+                final int encrypted = propertiesFile.replaceValues(
+                        value -> isDecryptedValue(value) ? encryptedValues.next() : null);
+                propertiesFile.write(file);
+                getLog().info("Encrypted " + encrypted + " values in " + file);
+            } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+                throw new MojoExecutionException("Error encrypting values in " + file, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while encrypting values in " + file, e);
+            }
+        }
+    }
+
+    private List<String> encryptIntoEnvelope(PropertiesFile propertiesFile, List<String> decryptedValues)
+            throws GeneralSecurityException {
+        final String header = propertiesFile.getProperty(PropertyEnvelope.HEADER_KEY);
+        final PropertyEnvelope fileEnvelope;
+        if (header != null) {
+            fileEnvelope = PropertyEnvelope.parse(header, jasyptEncryptorPassword);
+            // make sure that all values of the file can be decrypted with the same password
+            for (String value : propertiesFile.values()) {
+                if (PropertyEnvelope.isEnvelopeValue(value)) {
+                    fileEnvelope.decrypt(value);
+                    break;
+                }
+            }
+        } else {
+            if (newEnvelope == null) {
+                newEnvelope = PropertyEnvelope.create(jasyptEncryptorPassword, getKeyObtentionIteration());
+            }
+            fileEnvelope = newEnvelope;
+            propertiesFile.setProperty(PropertyEnvelope.HEADER_KEY, fileEnvelope.header());
+        }
+
+        final List<String> encryptedValues = new ArrayList<>();
+        for (String value : decryptedValues) {
+            encryptedValues.add(fileEnvelope.encrypt(unwrap(value)));
+        }
+        return encryptedValues;
+    }
+
+    private static boolean isDecryptedValue(String value) {
+        final String trimmedValue = value.trim();
+        return trimmedValue.startsWith(DECRYPTED_VALUE_PREFIX) && trimmedValue.endsWith(DECRYPTED_VALUE_SUFFIX);
+    }
+
+    private static String unwrap(String value) {
+        final String trimmedValue = value.trim();
+        return trimmedValue.substring(DECRYPTED_VALUE_PREFIX.length(),
+                trimmedValue.length() - DECRYPTED_VALUE_SUFFIX.length());
+    }
+
+    /**
+     * Sets the password to be used for encryption.
+     *
+     * @param jasyptEncryptorPassword the password to be used.
+     */
+    public void setJasyptEncryptorPassword(String jasyptEncryptorPassword) {
+        this.jasyptEncryptorPassword = jasyptEncryptorPassword;
+    }
+
+    /**
+     * Encrypts the values into GCM(...) values under a single key per file instead of ENC(...) values.
+     *
+     * @param envelope <code>true</code> to use the envelope format.
+     */
+    public void setEnvelope(boolean envelope) {
+        this.envelope = envelope;
+    }
+
+    /**
+     * The property files containing values to be encrypted.
+     *
+     * @param files the property files.
+     */
+    public void setFiles(File[] files) {
+        this.files = files;
+    }
+}
@@ -1,9 +1,10 @@
 package dev.haeusler.mojo;
 
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.jasypt.encryption.StringEncryptor;
 import org.jasypt.properties.PropertyValueEncryptionUtils;
 
 @Mojo(name = "encrypt", defaultPhase = LifecyclePhase.NONE, requiresProject = false)
@@ -22,9 +23,9 @@ public class EncryptPropertyMojo extends AbstractJasyptMojo {
     private String decryptedValue;
 
     @Override
-    public void execute() {
-        final PooledPBEStringEncryptor encryptor = buildEncryptor();
-        encryptor.setPassword(jasyptEncryptorPassword);
+    public void execute() throws MojoExecutionException {
+        checkPoolSize();
+        final StringEncryptor encryptor = buildEncryptor(jasyptEncryptorPassword);
 
         final String encryptedValue = PropertyValueEncryptionUtils.encrypt(decryptedValue, encryptor);
         getLog().info("\n" + encryptedValue);
@@ -0,0 +1,77 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Encrypts the given property files as a whole, writing each one next to the original with the suffix
+ * <code>.enc</code>. Such files are decrypted by <code>read-project-properties</code> while they are read.
+ * <p>
+ * Only <code>keyObtentionIteration</code> of the encryptor parameters applies, as the files are always encrypted with
+ * AES-GCM under a key derived with PBKDF2-SHA256.
+ */
+@Mojo(name = "encrypt-whole-file", defaultPhase = LifecyclePhase.NONE, requiresProject = false)
+public class EncryptWholeFileMojo extends AbstractJasyptMojo {
+
+    /**
+     * Sets the password to be used for encryption.
+     */
+    @Parameter(required = true, defaultValue = "${jasyptEncryptorPassword}")
+    private String jasyptEncryptorPassword;
+
+    /**
+     * The property files to be encrypted.
+     */
+    @Parameter(required = true, property = "files")
+    private File[] files;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        for (File file : files) {
+            final File encrypted = new File(file.getPath() + ReadPropertiesMojo.ENCRYPTED_FILE_SUFFIX);
+            try {
+                final Path target = encrypted.getAbsoluteFile().toPath();
+                final Path temporary = Files.createTempFile(target.getParent(), encrypted.getName(), ".tmp");
+                try {
+                    try (InputStream plaintext = new BufferedInputStream(new FileInputStream(file));
+                         OutputStream ciphertext = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                        StreamingFileCipher.encrypt(plaintext, ciphertext, jasyptEncryptorPassword,
+                                getKeyObtentionIteration());
+                    }
+                    Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temporary);
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Error encrypting " + file, e);
+            }
+            getLog().info("Encrypted " + file + " to " + encrypted);
+        }
+    }
+
+    /**
+     * Sets the password to be used for encryption.
+     *
+     * @param jasyptEncryptorPassword the password to be used.
+     */
+    public void setJasyptEncryptorPassword(String jasyptEncryptorPassword) {
+        this.jasyptEncryptorPassword = jasyptEncryptorPassword;
+    }
+
+    /**
+     * The property files to be encrypted.
+     *
+     * @param files the property files.
+     */
+    public void setFiles(File[] files) {
+        this.files = files;
+    }
+}
@@ -0,0 +1,285 @@
+package dev.haeusler.mojo;
+
+import org.jasypt.encryption.StringEncryptor;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counters of the phases of a <code>read-project-properties</code> execution, reported as a single log
+ * line and optionally as a JSON file.
+ */
+class ExecutionStats {
+
+    /**
+     * The upper bounds of the decryption latency histogram buckets in milliseconds, the last bucket is unbounded.
+     */
+    private static final long[] LATENCY_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000};
+
+    private final List<ResourceStats> resources = Collections.synchronizedList(new ArrayList<>());
+
+    private long loadNanos;
+
+    private long resolveNanos;
+
+    private long expandedPlaceholders;
+
+    private int maxDepth;
+
+    private long decryptNanos;
+
+    private int decryptedValues;
+
+    private int parallelism = 1;
+
+    private final LongAdder busyNanos = new LongAdder();
+
+    private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BOUNDS_MILLIS.length + 1);
+
+    /**
+     * @param resource the file or URL
+     * @param bytes    the number of bytes read
+     * @param entries  the number of properties read
+     * @param nanos    the time spent reading
+     */
+    public void resource(String resource, long bytes, int entries, long nanos) {
+        resources.add(new ResourceStats(resource, bytes, entries, nanos));
+    }
+
+    /**
+     * @param nanos the time spent loading all files and URLs
+     */
+    public void loaded(long nanos) {
+        loadNanos = nanos;
+    }
+
+    /**
+     * @param nanos                the time spent resolving placeholders
+     * @param expandedPlaceholders the number of placeholders expanded
+     * @param maxDepth             the deepest nesting of placeholders
+     */
+    public void resolved(long nanos, long expandedPlaceholders, int maxDepth) {
+        this.resolveNanos = nanos;
+        this.expandedPlaceholders = expandedPlaceholders;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @param nanos           the time spent decrypting
+     * @param decryptedValues the number of decrypted properties
+     * @param parallelism     the number of threads used for decryption
+     */
+    public void decrypted(long nanos, int decryptedValues, int parallelism) {
+        this.decryptNanos = nanos;
+        this.decryptedValues = decryptedValues;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param encryptor the encryptor
+     * @return an encryptor recording the latency of every decryption
+     */
+    public StringEncryptor timed(StringEncryptor encryptor) {
+        return new StringEncryptor() {
+            @Override
+            public String encrypt(String message) {
+                return encryptor.encrypt(message);
+            }
+
+            @Override
+            public String decrypt(String encryptedMessage) {
+                final long start = System.nanoTime();
+                try {
+                    return encryptor.decrypt(encryptedMessage);
+                } finally {
+                    latency(System.nanoTime() - start);
+                }
+            }
+        };
+    }
+
+    private void latency(long nanos) {
+        busyNanos.add(nanos);
+        final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < LATENCY_BOUNDS_MILLIS.length && millis >= LATENCY_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        latencies.incrementAndGet(bucket);
+    }
+
+    /**
+     * @return the share of the decryption time the decryption threads were busy, between 0 and 1
+     */
+    double poolUtilisation() {
+        if (decryptNanos <= 0) {
+            return 0;
+        }
+        return Math.min(1, (double) busyNanos.sum() / ((double) decryptNanos * parallelism));
+    }
+
+    /**
+     * @return the summary as a single line
+     */
+    public String summary() {
+        long bytes = 0;
+        int entries = 0;
+        synchronized (resources) {
+            for (ResourceStats resource : resources) {
+                bytes += resource.bytes;
+                entries += resource.entries;
+            }
+        }
+        return String.format(Locale.ROOT, "Read %d resources (%d bytes, %d entries) in %d ms, "
+                        + "expanded %d placeholders (max depth %d) in %d ms, "
+                        + "decrypted %d values in %d ms (pool utilisation %.0f%%)",
+                resources.size(), bytes, entries, millis(loadNanos),
+                expandedPlaceholders, maxDepth, millis(resolveNanos),
+                decryptedValues, millis(decryptNanos), poolUtilisation() * 100);
+    }
+
+    /**
+     * @return the stats as JSON
+     */
+    public String toJson() {
+        final StringBuilder json = new StringBuilder("{\n  \"load\": {\n    \"millis\": ").append(millis(loadNanos))
+                .append(",\n    \"resources\": [");
+        synchronized (resources) {
+            for (int i = 0; i < resources.size(); i++) {
+                final ResourceStats resource = resources.get(i);
+                json.append(i == 0 ? "\n" : ",\n")
+                        .append("      {\"resource\": ").append(quote(resource.resource))
+                        .append(", \"bytes\": ").append(resource.bytes)
+                        .append(", \"entries\": ").append(resource.entries)
+                        .append(", \"millis\": ").append(millis(resource.nanos)).append('}');
+            }
+        }
+        json.append(resources.isEmpty() ? "]\n  },\n" : "\n    ]\n  },\n")
+                .append("  \"resolve\": {\n    \"millis\": ").append(millis(resolveNanos))
+                .append(",\n    \"expandedPlaceholders\": ").append(expandedPlaceholders)
+                .append(",\n    \"maxDepth\": ").append(maxDepth)
+                .append("\n  },\n  \"decrypt\": {\n    \"millis\": ").append(millis(decryptNanos))
+                .append(",\n    \"values\": ").append(decryptedValues)
+                .append(",\n    \"parallelism\": ").append(parallelism)
+                .append(",\n    \"poolUtilisation\": ")
+                .append(String.format(Locale.ROOT, "%.3f", poolUtilisation()))
+                .append(",\n    \"latencyHistogram\": {");
+        for (int i = 0; i < latencies.length(); i++) {
+            final String bucket = i < LATENCY_BOUNDS_MILLIS.length
+                    ? "<" + LATENCY_BOUNDS_MILLIS[i] + "ms"
+                    : ">=" + LATENCY_BOUNDS_MILLIS[LATENCY_BOUNDS_MILLIS.length - 1] + "ms";
+            json.append(i == 0 ? "" : ", ").append(quote(bucket)).append(": ").append(latencies.get(i));
+        }
+        return json.append("}\n  }\n}\n").toString();
+    }
+
+    /**
+     * Writes the stats as JSON, replacing the file in a single step.
+     *
+     * @param file the report file
+     * @throws IOException if the file could not be written
+     */
+    public void write(File file) throws IOException {
+        final Path target = file.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        final Path temporary = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            Files.write(temporary, toJson().getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static String quote(String value) {
+        final StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static class ResourceStats {
+        private final String resource;
+
+        private final long bytes;
+
+        private final int entries;
+
+        private final long nanos;
+
+        private ResourceStats(String resource, long bytes, int entries, long nanos) {
+            this.resource = resource;
+            this.bytes = bytes;
+            this.entries = entries;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Counts the bytes read from a stream.
+     */
+    static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int read = super.read();
+            if (read >= 0) {
+                count++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            final int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        /**
+         * @return the number of bytes read so far
+         */
+        long getCount() {
+            return count;
+        }
+    }
+}
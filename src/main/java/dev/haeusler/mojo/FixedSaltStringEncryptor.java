@@ -0,0 +1,145 @@
+package dev.haeusler.mojo;
+
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.encryption.pbe.config.StringPBEConfig;
+import org.jasypt.iv.IvGenerator;
+import org.jasypt.iv.NoIvGenerator;
+import org.jasypt.salt.SaltGenerator;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decrypts values encrypted by Jasypt with one of the PBEWithHmacSHA*AndAES_* algorithms and a fixed salt.
+ * <p>
+ * Jasypt derives the key again for every value whenever an IV generator is configured, although with a fixed salt the
+ * derived key is the same every time. This encryptor derives the key once and only runs AES/CBC per value, with a
+ * new cipher for every value so that it can be used from several threads. Values that cannot be decrypted this way,
+ * as well as all encryption, are handed to the Jasypt encryptor, so errors stay the same.
+ */
+class FixedSaltStringEncryptor implements StringEncryptor {
+
+    private static final Pattern ALGORITHM = Pattern.compile("PBEWithHmac(SHA\\d+)AndAES_(128|256)",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
+    private static final int BLOCK_SIZE_BYTES = 16;
+
+    private final StringEncryptor fallback;
+
+    private final String keyDerivationAlgorithm;
+
+    private final int keySizeBits;
+
+    private final int iterations;
+
+    private final char[] password;
+
+    private final byte[] salt;
+
+    private final IvGenerator ivGenerator;
+
+    private final boolean hexadecimal;
+
+    private volatile SecretKey key;
+
+    private FixedSaltStringEncryptor(StringEncryptor fallback, Matcher algorithm, StringPBEConfig config,
+                                     String password) {
+        this.fallback = fallback;
+        this.keyDerivationAlgorithm = "PBKDF2WithHmac" + algorithm.group(1).toUpperCase();
+        this.keySizeBits = Integer.parseInt(algorithm.group(2));
+        this.iterations = config.getKeyObtentionIterations();
+        this.password = Normalizer.normalize(password, Normalizer.Form.NFC).toCharArray();
+        this.salt = config.getSaltGenerator().generateSalt(BLOCK_SIZE_BYTES);
+        this.ivGenerator = config.getIvGenerator();
+        this.hexadecimal = "hexadecimal".equalsIgnoreCase(config.getStringOutputType());
+    }
+
+    /**
+     * @param config   the encryptor configuration
+     * @param password the password
+     * @param fallback the Jasypt encryptor for the same configuration and password
+     * @return an encryptor deriving the key only once if the configuration allows it, otherwise the fallback
+     */
+    static StringEncryptor create(StringPBEConfig config, String password, StringEncryptor fallback) {
+        final Matcher algorithm = ALGORITHM.matcher(String.valueOf(config.getAlgorithm()));
+        final SaltGenerator saltGenerator = config.getSaltGenerator();
+        final IvGenerator ivGenerator = config.getIvGenerator();
+        if (!algorithm.matches() || config.getKeyObtentionIterations() == null
+                || config.getProvider() != null || config.getProviderName() != null
+                || saltGenerator == null || saltGenerator.includePlainSaltInEncryptionResults()
+                || ivGenerator == null || ivGenerator instanceof NoIvGenerator) {
+            // with a random salt the key differs per value, and without IV Jasypt already derives the key only once
+            return fallback;
+        }
+        return new FixedSaltStringEncryptor(fallback, algorithm, config, password);
+    }
+
+    @Override
+    public String encrypt(String message) {
+        return fallback.encrypt(message);
+    }
+
+    @Override
+    public String decrypt(String encryptedMessage) {
+        if (encryptedMessage == null) {
+            return null;
+        }
+        try {
+            final byte[] message = hexadecimal
+                    ? Digests.fromHex(encryptedMessage)
+                    : Base64.getMimeDecoder().decode(encryptedMessage);
+
+            final byte[] iv;
+            int offset = 0;
+            if (ivGenerator.includePlainIvInEncryptionResults()) {
+                if (message.length < BLOCK_SIZE_BYTES) {
+                    return fallback.decrypt(encryptedMessage);
+                }
+                iv = Arrays.copyOf(message, BLOCK_SIZE_BYTES);
+                offset = BLOCK_SIZE_BYTES;
+            } else {
+                iv = ivGenerator.generateIv(BLOCK_SIZE_BYTES);
+            }
+
+            final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key(), new IvParameterSpec(iv));
+            return new String(cipher.doFinal(message, offset, message.length - offset), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return fallback.decrypt(encryptedMessage);
+        }
+    }
+
+    private SecretKey key() throws GeneralSecurityException {
+        SecretKey derived = key;
+        if (derived == null) {
+            synchronized (this) {
+                derived = key;
+                if (derived == null) {
+                    final PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, keySizeBits);
+                    try {
+                        final byte[] encoded = SecretKeyFactory.getInstance(keyDerivationAlgorithm)
+                                .generateSecret(spec).getEncoded();
+                        derived = new SecretKeySpec(encoded, "AES");
+                    } finally {
+                        spec.clearPassword();
+                    }
+                    key = derived;
+                }
+            }
+        }
+        return derived;
+    }
+}
@@ -0,0 +1,169 @@
+package dev.haeusler.mojo;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keeps the resolved and decrypted properties of a <code>read-project-properties</code> execution, so that the next
+ * execution with unchanged inputs can restore them instead of loading, resolving and decrypting them again.
+ * <p>
+ * The snapshot is only used if the digest of the inputs is unchanged, and if the system properties and environment
+ * variables referenced by placeholders still have the same values. Only the names of the referenced variables and a
+ * digest of their values are stored in plain text. The properties are stored AES-GCM encrypted under a key derived
+ * from the password, bound to the digest of the inputs.
+ */
+class IncrementalSnapshot {
+
+    private static final String INPUTS_KEY = "jasypt.snapshot.inputs";
+
+    private static final String SYSTEM_PROPERTIES_KEY = "jasypt.snapshot.systemProperties";
+
+    private static final String ENVIRONMENT_KEY = "jasypt.snapshot.environment";
+
+    private static final String REFERENCES_KEY = "jasypt.snapshot.references";
+
+    private static final String SALT_KEY = "jasypt.snapshot.salt";
+
+    private static final String VALUES_KEY = "jasypt.snapshot.values";
+
+    private static final int SALT_SIZE_BYTES = 16;
+
+    private final File file;
+
+    private final String inputs;
+
+    /**
+     * @param file   the snapshot file
+     * @param inputs the description of all inputs except referenced system properties and environment variables
+     */
+    IncrementalSnapshot(File file, String inputs) {
+        this.file = file;
+        this.inputs = Digests.sha256Hex(inputs);
+    }
+
+    /**
+     * @param password               the password
+     * @param keyObtentionIterations the number of hashing iterations applied to obtain the snapshot key
+     * @param systemProperties       returns the value of a system property
+     * @param environment            returns the value of an environment variable
+     * @return the properties of the snapshot, or <code>null</code> if there is none or it is outdated
+     * @throws IOException if the snapshot could not be read
+     */
+    public Map<String, String> load(String password, int keyObtentionIterations,
+                                    UnaryOperator<String> systemProperties, UnaryOperator<String> environment)
+            throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        final Properties snapshot = new Properties();
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(file))) {
+            snapshot.load(stream);
+        }
+        final String references = referencesDigest(split(snapshot.getProperty(SYSTEM_PROPERTIES_KEY)),
+                split(snapshot.getProperty(ENVIRONMENT_KEY)), systemProperties, environment);
+        if (!inputs.equals(snapshot.getProperty(INPUTS_KEY))
+                || !references.equals(snapshot.getProperty(REFERENCES_KEY))) {
+            return null;
+        }
+
+        final Properties values = new Properties();
+        try {
+            final byte[] salt = Base64.getDecoder().decode(snapshot.getProperty(SALT_KEY, ""));
+            final byte[] ciphertext = Base64.getDecoder().decode(snapshot.getProperty(VALUES_KEY, ""));
+            final AesGcmCipher cipher = new AesGcmCipher(
+                    AesGcmCipher.deriveKey(password, salt, keyObtentionIterations));
+            values.load(new ByteArrayInputStream(cipher.decrypt(ciphertext, aad(references))));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return null;
+        }
+
+        final Map<String, String> properties = new LinkedHashMap<>();
+        for (String key : values.stringPropertyNames()) {
+            properties.put(key, values.getProperty(key));
+        }
+        return properties;
+    }
+
+    /**
+     * Replaces the snapshot.
+     *
+     * @param properties             the resolved and decrypted properties
+     * @param systemPropertyNames    the names of the system properties referenced by placeholders
+     * @param environmentNames       the names of the environment variables referenced by placeholders
+     * @param password               the password
+     * @param keyObtentionIterations the number of hashing iterations applied to obtain the snapshot key
+     * @param systemProperties       returns the value of a system property
+     * @param environment            returns the value of an environment variable
+     * @throws IOException if the snapshot could not be written
+     */
+    public void store(Map<String, String> properties, Collection<String> systemPropertyNames,
+                      Collection<String> environmentNames, String password, int keyObtentionIterations,
+                      UnaryOperator<String> systemProperties, UnaryOperator<String> environment)
+            throws IOException {
+        final String references = referencesDigest(systemPropertyNames, environmentNames, systemProperties,
+                environment);
+        final Properties values = new Properties();
+        values.putAll(properties);
+        final ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        values.store(plaintext, null);
+
+        final Properties snapshot = new Properties();
+        snapshot.setProperty(INPUTS_KEY, inputs);
+        snapshot.setProperty(SYSTEM_PROPERTIES_KEY, String.join(",", systemPropertyNames));
+        snapshot.setProperty(ENVIRONMENT_KEY, String.join(",", environmentNames));
+        snapshot.setProperty(REFERENCES_KEY, references);
+        try {
+            final byte[] salt = AesGcmCipher.randomBytes(SALT_SIZE_BYTES);
+            final AesGcmCipher cipher = new AesGcmCipher(
+                    AesGcmCipher.deriveKey(password, salt, keyObtentionIterations));
+            snapshot.setProperty(SALT_KEY, Base64.getEncoder().encodeToString(salt));
+            snapshot.setProperty(VALUES_KEY, Base64.getEncoder().encodeToString(
+                    cipher.encrypt(plaintext.toByteArray(), aad(references))));
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot encrypt snapshot " + file, e);
+        }
+
+        final Path target = file.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        final Path temporary = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                snapshot.store(stream, null);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private byte[] aad(String references) {
+        return (inputs + ':' + references).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String referencesDigest(Collection<String> systemPropertyNames, Collection<String> environmentNames,
+                                           UnaryOperator<String> systemProperties,
+                                           UnaryOperator<String> environment) {
+        final StringBuilder references = new StringBuilder();
+        for (String name : systemPropertyNames) {
+            references.append("system:").append(name).append('=').append(systemProperties.apply(name)).append('\0');
+        }
+        for (String name : environmentNames) {
+            references.append("env:").append(name).append('=').append(environment.apply(name)).append('\0');
+        }
+        return Digests.sha256Hex(references.toString());
+    }
+
+    private static List<String> split(String names) {
+        if (names == null || names.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(names.split(","));
+    }
+}
@@ -0,0 +1,110 @@
+package dev.haeusler.mojo;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of the plugin, so that recordings of Maven builds attribute time to loading, resolving
+ * and decrypting properties. The events are only recorded when enabled in the recording settings, e.g. with
+ * <code>-XX:StartFlightRecording:settings=profile</code>.
+ */
+final class JfrEvents {
+
+    private static final String CATEGORY = "Jasypt Maven Plugin";
+
+    private JfrEvents() {
+    }
+
+    @Name("dev.haeusler.jasypt.LoadResource")
+    @Label("Load Properties")
+    @Description("Reading the properties of a file or URL")
+    @Category({"Maven", CATEGORY})
+    static class LoadResource extends Event {
+        @Label("Resource")
+        String resource;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Entries")
+        int entries;
+    }
+
+    @Name("dev.haeusler.jasypt.ResolveKey")
+    @Label("Resolve Property")
+    @Description("Expanding the placeholders of a single property")
+    @Category({"Maven", CATEGORY})
+    static class ResolveKey extends Event {
+        @Label("Key")
+        String key;
+
+        @Label("Expanded Placeholders")
+        int expandedPlaceholders;
+
+        @Label("Depth")
+        @Description("The deepest nesting of placeholders")
+        int depth;
+
+        void expanded(int depth) {
+            expandedPlaceholders++;
+            this.depth = Math.max(this.depth, depth);
+        }
+    }
+
+    @Name("dev.haeusler.jasypt.ResolveAll")
+    @Label("Resolve Properties")
+    @Description("Expanding the placeholders of all properties at once")
+    @Category({"Maven", CATEGORY})
+    static class ResolveAll extends Event {
+        @Label("Keys")
+        int keys;
+
+        @Label("Expanded Placeholders")
+        int expandedPlaceholders;
+
+        @Label("Depth")
+        @Description("The deepest nesting of placeholders")
+        int depth;
+
+        void expanded(int depth) {
+            expandedPlaceholders++;
+            this.depth = Math.max(this.depth, depth);
+        }
+    }
+
+    @Name("dev.haeusler.jasypt.DecryptBatch")
+    @Label("Decrypt Properties")
+    @Description("Decrypting the encrypted values of an execution")
+    @Category({"Maven", CATEGORY})
+    static class DecryptBatch extends Event {
+        @Label("Values")
+        int values;
+
+        @Label("Parallelism")
+        int parallelism;
+    }
+
+    @Name("dev.haeusler.jasypt.BuildEncryptor")
+    @Label("Build Encryptor")
+    @Description("Configuring an encryptor; Jasypt derives keys lazily on first use")
+    @Category({"Maven", CATEGORY})
+    static class BuildEncryptor extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Pool Size")
+        int poolSize;
+
+        @Label("Key Obtention Iterations")
+        int keyObtentionIterations;
+
+        @Label("Fixed Salt")
+        @Description("The key is derived only once for all values")
+        boolean fixedSalt;
+    }
+}
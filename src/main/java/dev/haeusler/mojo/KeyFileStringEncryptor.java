@@ -0,0 +1,134 @@
+package dev.haeusler.mojo;
+
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.exceptions.EncryptionInitializationException;
+import org.jasypt.exceptions.EncryptionOperationNotPossibleException;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Base64;
+
+/**
+ * Encrypts values with AES-GCM under a key read from a key file or a keystore, so that no key has to be derived from a
+ * password. Decrypting a value takes a single cipher operation.
+ * <p>
+ * The encrypted values are the nonce followed by the ciphertext and the authentication tag, in base64 or hexadecimal
+ * form. They can only be decrypted in this mode.
+ */
+class KeyFileStringEncryptor implements StringEncryptor {
+
+    private static final byte[] NO_AAD = new byte[0];
+
+    private final AesGcmCipher cipher;
+
+    private final boolean hexadecimal;
+
+    /**
+     * @param key              the AES key
+     * @param stringOutputType <code>base64</code> or <code>hexadecimal</code>
+     */
+    KeyFileStringEncryptor(SecretKey key, String stringOutputType) {
+        this.cipher = new AesGcmCipher(key);
+        this.hexadecimal = "hexadecimal".equalsIgnoreCase(stringOutputType);
+    }
+
+    /**
+     * Reads an AES key of 128, 192 or 256 bits from a file, either in base64 form or as raw bytes. Content that is the
+     * base64 form of a key is taken as such, even if its length is also that of a raw key, e.g. the 24 characters of a
+     * 128 bit key without a trailing newline.
+     *
+     * @param file the key file
+     * @return the key
+     * @throws EncryptionInitializationException if the file could not be read or holds no AES key
+     */
+    static SecretKey readKeyFile(File file) {
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            throw new EncryptionInitializationException("Cannot read key file " + file, e);
+        }
+
+        try {
+            final byte[] decoded = Base64.getDecoder().decode(new String(content, StandardCharsets.US_ASCII).trim());
+            if (isAesKeySize(decoded.length)) {
+                return new SecretKeySpec(decoded, "AES");
+            }
+        } catch (IllegalArgumentException e) {
+            // not in base64 form
+        }
+        if (isAesKeySize(content.length)) {
+            return new SecretKeySpec(content, "AES");
+        }
+        throw new EncryptionInitializationException("Key file " + file + " has to hold a 128, 192 or 256 bit key, "
+                + "in base64 form or as raw bytes");
+    }
+
+    /**
+     * Reads an AES key from a keystore, e.g. one created with
+     * <code>keytool -genseckey -keyalg AES -keysize 256 -storetype PKCS12</code>.
+     *
+     * @param file     the keystore
+     * @param type     the keystore type, e.g. <code>PKCS12</code>
+     * @param alias    the alias of the key
+     * @param password the password of the keystore and the key
+     * @return the key
+     * @throws EncryptionInitializationException if the keystore could not be read or holds no such AES key
+     */
+    static SecretKey readKeyStore(File file, String type, String alias, String password) {
+        final char[] secret = password != null ? password.toCharArray() : new char[0];
+        final Key key;
+        try (InputStream stream = new FileInputStream(file)) {
+            final KeyStore keyStore = KeyStore.getInstance(type);
+            keyStore.load(stream, secret);
+            key = keyStore.getKey(alias, secret);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new EncryptionInitializationException("Cannot read keystore " + file, e);
+        }
+        if (!(key instanceof SecretKey) || !"AES".equalsIgnoreCase(key.getAlgorithm())) {
+            throw new EncryptionInitializationException("Keystore " + file + " holds no AES key " + alias);
+        }
+        return new SecretKeySpec(key.getEncoded(), "AES");
+    }
+
+    private static boolean isAesKeySize(int bytes) {
+        return bytes == 16 || bytes == 24 || bytes == 32;
+    }
+
+    @Override
+    public String encrypt(String message) {
+        if (message == null) {
+            return null;
+        }
+        try {
+            final byte[] encrypted = cipher.encrypt(message.getBytes(StandardCharsets.UTF_8), NO_AAD);
+            return hexadecimal ? Digests.toHex(encrypted) : Base64.getEncoder().encodeToString(encrypted);
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionOperationNotPossibleException(e);
+        }
+    }
+
+    @Override
+    public String decrypt(String encryptedMessage) {
+        if (encryptedMessage == null) {
+            return null;
+        }
+        try {
+            final byte[] message = hexadecimal
+                    ? Digests.fromHex(encryptedMessage)
+                    : Base64.getMimeDecoder().decode(encryptedMessage);
+            return new String(cipher.decrypt(message, NO_AAD), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new EncryptionOperationNotPossibleException(e);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package dev.haeusler.mojo;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Properties decrypting deferred values on first access. A deferred value is decrypted once, even when it is accessed
+ * by several threads at the same time, and then replaces the encrypted value.
+ * <p>
+ * Single values are decrypted by {@link #get(Object)}, {@link #getProperty(String)} and
+ * {@link #getOrDefault(Object, Object)}. Listing the keys with {@link #keySet()}, {@link #stringPropertyNames()} or
+ * {@link #propertyNames()} decrypts nothing, and the entries of {@link #entrySet()} only decrypt their value when it
+ * is read.
+ * <p>
+ * Whatever reads all values does decrypt all of them: copying the properties, e.g. with <code>putAll</code> into
+ * another map, {@link #store(java.io.Writer, String)}, {@link #values()}, {@link #toString()},
+ * {@link #containsValue(Object)}, {@link #equals(Object)} and {@link #hashCode()}.
+ */
+class LazyDecryptingProperties extends Properties {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient DecryptionCache decryptedValues = new DecryptionCache(new ConcurrentHashMap<>(), "");
+
+    private final transient ConcurrentMap<Object, Deferred> deferred = new ConcurrentHashMap<>();
+
+    /**
+     * @param properties the properties to be copied
+     */
+    LazyDecryptingProperties(Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            super.put(key, properties.getProperty(key));
+        }
+    }
+
+    /**
+     * Defers the decryption of the current value of the given property until it is accessed.
+     *
+     * @param key        the key of a property with an encrypted value
+     * @param decryption decrypts the value
+     */
+    void defer(String key, UnaryOperator<String> decryption) {
+        final Object value = super.get(key);
+        if (value instanceof String) {
+            deferred.put(key, new Deferred((String) value, decryption));
+        }
+    }
+
+    /**
+     * @param key the key of a property
+     * @return the value of the property, without decrypting it
+     */
+    Object getRaw(Object key) {
+        return super.get(key);
+    }
+
+    /**
+     * @return the number of values not decrypted yet
+     */
+    int getDeferredCount() {
+        return deferred.size();
+    }
+
+    @Override
+    public Object get(Object key) {
+        final Object value = super.get(key);
+        final Deferred pending = deferred.get(key);
+        if (pending == null || !pending.encryptedValue.equals(value)) {
+            return value;
+        }
+
+        final String decryptedValue;
+        try {
+            decryptedValue = decryptedValues.decrypt(pending.encryptedValue, pending.decryption);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot decrypt property " + key + ": " + e.getMessage(), e);
+        }
+        super.replace(key, pending.encryptedValue, decryptedValue);
+        deferred.remove(key, pending);
+        return decryptedValue;
+    }
+
+    @Override
+    public String getProperty(String key) {
+        final Object value = get(key);
+        if (value instanceof String) {
+            return (String) value;
+        }
+        return defaults != null ? defaults.getProperty(key) : null;
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        final Object value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    @Override
+    public Set<Map.Entry<Object, Object>> entrySet() {
+        final Set<Map.Entry<Object, Object>> entries = super.entrySet();
+        if (deferred.isEmpty()) {
+            return entries;
+        }
+        return new AbstractSet<Map.Entry<Object, Object>>() {
+            @Override
+            public Iterator<Map.Entry<Object, Object>> iterator() {
+                final Iterator<Map.Entry<Object, Object>> iterator = entries.iterator();
+                return new Iterator<Map.Entry<Object, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<Object, Object> next() {
+                        return new DecryptingEntry(iterator.next());
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<String> stringPropertyNames() {
+        // values are strings before and after decryption, so the raw values tell the string properties
+        final Set<String> names = defaults != null ? new HashSet<>(defaults.stringPropertyNames()) : new HashSet<>();
+        for (Map.Entry<Object, Object> entry : super.entrySet()) {
+            if (entry.getKey() instanceof String && entry.getValue() instanceof String) {
+                names.add((String) entry.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    @Override
+    public Enumeration<?> propertyNames() {
+        final Set<Object> names = new HashSet<>();
+        if (defaults != null) {
+            names.addAll(Collections.list(defaults.propertyNames()));
+        }
+        names.addAll(keySet());
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public Collection<Object> values() {
+        decryptAll();
+        return super.values();
+    }
+
+    @Override
+    public Enumeration<Object> elements() {
+        decryptAll();
+        return super.elements();
+    }
+
+    @Override
+    public synchronized void forEach(BiConsumer<? super Object, ? super Object> action) {
+        decryptAll();
+        super.forEach(action);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        decryptAll();
+        return super.containsValue(value);
+    }
+
+    @Override
+    public synchronized boolean contains(Object value) {
+        decryptAll();
+        return super.contains(value);
+    }
+
+    @Override
+    public synchronized String toString() {
+        decryptAll();
+        return super.toString();
+    }
+
+    @Override
+    public synchronized boolean equals(Object o) {
+        decryptAll();
+        return super.equals(o);
+    }
+
+    @Override
+    public synchronized int hashCode() {
+        decryptAll();
+        return super.hashCode();
+    }
+
+    private void decryptAll() {
+        for (Object key : deferred.keySet()) {
+            get(key);
+        }
+    }
+
+    /**
+     * An entry decrypting its value when it is read.
+     */
+    private class DecryptingEntry implements Map.Entry<Object, Object> {
+        private final Map.Entry<Object, Object> entry;
+
+        private DecryptingEntry(Map.Entry<Object, Object> entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        public Object getValue() {
+            return deferred.containsKey(entry.getKey()) ? get(entry.getKey()) : entry.getValue();
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return entry.setValue(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private static class Deferred {
+        private final String encryptedValue;
+
+        private final UnaryOperator<String> decryption;
+
+        private Deferred(String encryptedValue, UnaryOperator<String> decryption) {
+            this.encryptedValue = encryptedValue;
+            this.decryption = decryption;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dev.haeusler.mojo;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+
+/**
+ * Maps values, either one after another or fanned out across a fixed number of threads.
+ */
+class ParallelMapper {
+
+    private final int parallelism;
+
+    /**
+     * @param parallelism the number of values mapped concurrently
+     */
+    ParallelMapper(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Maps all given values, each distinct value once. The returned map is ordered like the given values, regardless
+     * of the order in which the mappings completed.
+     *
+     * @param values   the values to be mapped
+     * @param function the mapping, has to be thread-safe if the parallelism is greater than one
+     * @return the mapped value for each value
+     * @throws InterruptedException when interrupted while waiting for the mapping to complete
+     */
+    public Map<String, String> map(Collection<String> values, UnaryOperator<String> function)
+            throws InterruptedException {
+        final List<String> distinctValues = new ArrayList<>(new LinkedHashSet<>(values));
+        final List<String> mapped = mapEach(distinctValues, function);
+
+        final Map<String, String> mappedValues = new LinkedHashMap<>();
+        for (int i = 0; i < distinctValues.size(); i++) {
+            mappedValues.put(distinctValues.get(i), mapped.get(i));
+        }
+        return mappedValues;
+    }
+
+    /**
+     * Maps each of the given values on its own, also values occurring more than once, e.g. so that equal values are
+     * encrypted with different salts.
+     *
+     * @param values   the values to be mapped
+     * @param function the mapping, has to be thread-safe if the parallelism is greater than one
+     * @return the mapped values, in the order of the given values
+     * @throws InterruptedException when interrupted while waiting for the mapping to complete
+     */
+    public List<String> mapEach(List<String> values, UnaryOperator<String> function) throws InterruptedException {
+        final List<String> mappedValues = new ArrayList<>(values.size());
+
+        if (parallelism == 1 || values.size() < 2) {
+            for (String value : values) {
+                mappedValues.add(function.apply(value));
+            }
+            return mappedValues;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, values.size()));
+        try {
+            final List<Future<String>> futures = new ArrayList<>(values.size());
+            for (String value : values) {
+                futures.add(executor.submit(() -> function.apply(value)));
+            }
+            for (Future<String> future : futures) {
+                mappedValues.add(get(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return mappedValues;
+    }
+
+    private static String get(Future<String> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
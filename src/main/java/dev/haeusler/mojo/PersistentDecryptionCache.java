@@ -0,0 +1,153 @@
+package dev.haeusler.mojo;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Keeps the decrypted values of property files on disk, so that a file which did not change since the last build does
+ * not need to be decrypted value by value again.
+ * <p>
+ * There is one entry per property file. An entry is only used if the digest of the file content and the encryptor
+ * configuration are unchanged. The decrypted values are stored AES-GCM encrypted, using a key which is derived from the
+ * password only once per execution. An entry that cannot be decrypted, e.g. because the password changed, is ignored.
+ */
+class PersistentDecryptionCache {
+
+    private static final String SALT_FILE_NAME = "salt";
+
+    private static final int SALT_SIZE_BYTES = 16;
+
+    private static final String DIGEST_KEY = "jasypt.cache.digest";
+
+    private static final String CONFIGURATION_KEY = "jasypt.cache.configuration";
+
+    private final File directory;
+
+    private final String configuration;
+
+    private final String password;
+
+    private final int keyObtentionIterations;
+
+    private AesGcmCipher cipher;
+
+    /**
+     * @param directory              the directory holding the cache entries
+     * @param configuration          the encryptor configuration, excluding the password
+     * @param password               the password
+     * @param keyObtentionIterations the number of hashing iterations applied to obtain the cache key
+     */
+    PersistentDecryptionCache(File directory, String configuration, String password, int keyObtentionIterations) {
+        this.directory = directory;
+        this.configuration = Digests.sha256Hex(configuration);
+        this.password = password;
+        this.keyObtentionIterations = keyObtentionIterations;
+    }
+
+    /**
+     * @param file   the property file
+     * @param digest the digest of the current file content
+     * @return the decrypted value for each encrypted value of the file, empty if the file is not cached or outdated
+     * @throws IOException if the cache entry could not be read
+     */
+    public Map<String, String> load(File file, String digest) throws IOException {
+        final File entry = entryFor(file);
+        final Map<String, String> decryptedValues = new HashMap<>();
+        if (!entry.isFile()) {
+            return decryptedValues;
+        }
+
+        final Properties properties = new Properties();
+        try (InputStream stream = new BufferedInputStream(new FileInputStream(entry))) {
+            properties.load(stream);
+        }
+        if (!digest.equals(properties.getProperty(DIGEST_KEY))
+                || !configuration.equals(properties.getProperty(CONFIGURATION_KEY))) {
+            return decryptedValues;
+        }
+
+        try {
+            for (String encryptedValue : properties.stringPropertyNames()) {
+                if (encryptedValue.equals(DIGEST_KEY) || encryptedValue.equals(CONFIGURATION_KEY)) {
+                    continue;
+                }
+                final byte[] cached = Base64.getDecoder().decode(properties.getProperty(encryptedValue));
+                final byte[] value = cipher().decrypt(cached, encryptedValue.getBytes(StandardCharsets.UTF_8));
+                decryptedValues.put(encryptedValue, new String(value, StandardCharsets.UTF_8));
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            decryptedValues.clear();
+        }
+        return decryptedValues;
+    }
+
+    /**
+     * Replaces the cache entry of a file.
+     *
+     * @param file            the property file
+     * @param digest          the digest of the current file content
+     * @param decryptedValues the decrypted value for each encrypted value of the file
+     * @throws IOException if the cache entry could not be written
+     */
+    public void store(File file, String digest, Map<String, String> decryptedValues) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(DIGEST_KEY, digest);
+        properties.setProperty(CONFIGURATION_KEY, configuration);
+        try {
+            for (Map.Entry<String, String> decryptedValue : decryptedValues.entrySet()) {
+                final byte[] cached = cipher().encrypt(decryptedValue.getValue().getBytes(StandardCharsets.UTF_8),
+                        decryptedValue.getKey().getBytes(StandardCharsets.UTF_8));
+                properties.setProperty(decryptedValue.getKey(), Base64.getEncoder().encodeToString(cached));
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot encrypt cache entry for " + file, e);
+        }
+
+        final File entry = entryFor(file);
+        Files.createDirectories(directory.toPath());
+        final Path temporary = Files.createTempFile(directory.toPath(), entry.getName(), ".tmp");
+        try {
+            try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+                properties.store(stream, null);
+            }
+            Files.move(temporary, entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private File entryFor(File file) throws IOException {
+        return new File(directory, Digests.sha256Hex(file.getCanonicalPath()) + ".properties");
+    }
+
+    private AesGcmCipher cipher() throws IOException, GeneralSecurityException {
+        if (cipher == null) {
+            cipher = new AesGcmCipher(AesGcmCipher.deriveKey(password, salt(), keyObtentionIterations));
+        }
+        return cipher;
+    }
+
+    private byte[] salt() throws IOException {
+        final Path salt = new File(directory, SALT_FILE_NAME).toPath();
+        if (!Files.exists(salt)) {
+            Files.createDirectories(directory.toPath());
+            final Path temporary = Files.createTempFile(directory.toPath(), SALT_FILE_NAME, ".tmp");
+            try {
+                Files.write(temporary, AesGcmCipher.randomBytes(SALT_SIZE_BYTES));
+                Files.move(temporary, salt);
+            } catch (FileAlreadyExistsException e) {
+                // created concurrently by another execution
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        }
+        return Files.readAllBytes(salt);
+    }
+}
@@ -0,0 +1,130 @@
+package dev.haeusler.mojo;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Expands ${...} placeholders in a single pass. Instead of copying the remaining input whenever a placeholder is
+ * replaced, the expander keeps a cursor into every value being expanded and continues where it left off once the
+ * value of a nested placeholder has been expanded. A placeholder occurring more than once is only expanded once.
+ */
+class PlaceholderExpander {
+    private static final String PREFIX = "${";
+
+    private static final char SUFFIX = '}';
+
+    private final UnaryOperator<String> lookup;
+
+    private final CircularDefinitionPreventer circularDefinitionPreventer;
+
+    private final IntConsumer expansions;
+
+    /**
+     * @param lookup                      returns the value of a placeholder key, or <code>null</code> if unknown
+     * @param circularDefinitionPreventer tracks the placeholder keys being expanded
+     * @param expansions                  notified with the nesting depth of every placeholder expanded
+     */
+    PlaceholderExpander(UnaryOperator<String> lookup, CircularDefinitionPreventer circularDefinitionPreventer,
+                        IntConsumer expansions) {
+        this.lookup = lookup;
+        this.circularDefinitionPreventer = circularDefinitionPreventer;
+        this.expansions = expansions;
+    }
+
+    /**
+     * @param value the value to be expanded, may be <code>null</code>
+     * @return the value with all known placeholders replaced, unknown placeholders are left as they are
+     * @throws IllegalArgumentException when properties are circularly defined
+     */
+    public String expand(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        final StringBuilder resolved = new StringBuilder(value.length());
+        final Deque<Cursor> suspended = new ArrayDeque<>();
+        Map<String, String> expanded = null;
+        Cursor cursor = new Cursor(null, value, 0);
+
+        while (cursor != null) {
+            final String text = cursor.text;
+            final int prefixPos = text.indexOf(PREFIX, cursor.position);
+            final int suffixPos = prefixPos >= 0 ? text.indexOf(SUFFIX, prefixPos + PREFIX.length()) : -1;
+
+            if (suffixPos < 0) {
+                resolved.append(text, cursor.position, text.length());
+                if (cursor.key != null) {
+                    if (expanded == null) {
+                        expanded = new HashMap<>();
+                    }
+                    expanded.put(cursor.key, resolved.substring(cursor.start));
+                    circularDefinitionPreventer.left();
+                }
+                cursor = suspended.poll();
+                continue;
+            }
+
+            resolved.append(text, cursor.position, prefixPos);
+            final String key = text.substring(prefixPos + PREFIX.length(), suffixPos);
+            cursor.position = suffixPos + 1;
+
+            final String expandedValue = expanded != null ? expanded.get(key) : null;
+            if (expandedValue != null) {
+                expansions.accept(suspended.size() + 1);
+                resolved.append(expandedValue);
+                continue;
+            }
+
+            final String keyValue = lookup.apply(key);
+            if (keyValue != null) {
+                circularDefinitionPreventer.visited(key, keyValue);
+                expansions.accept(suspended.size() + 1);
+                suspended.push(cursor);
+                cursor = new Cursor(key, keyValue, resolved.length());
+            } else {
+                resolved.append(text, prefixPos, cursor.position);
+            }
+        }
+
+        return resolved.toString();
+    }
+
+    private static class Cursor {
+        private final String key;
+
+        private final String text;
+
+        private final int start;
+
+        private int position;
+
+        private Cursor(String key, String text, int start) {
+            this.key = key;
+            this.text = text;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package dev.haeusler.mojo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * A property file kept line by line, so that single values can be replaced while comments, ordering and formatting of
+ * everything else are preserved. Like {@link java.util.Properties#load(java.io.InputStream)}, the file is read as
+ * ISO 8859-1. Values continued on the next line are never replaced, see {@link #continuedEntries()}.
+ */
+class PropertiesFile {
+
+    private final List<Line> lines = new ArrayList<>();
+
+    private PropertiesFile(String content) {
+        boolean continued = false;
+        int start = 0;
+        while (start < content.length()) {
+            int end = start;
+            while (end < content.length() && content.charAt(end) != '\n' && content.charAt(end) != '\r') {
+                end++;
+            }
+            int next = end;
+            if (next < content.length() && content.charAt(next) == '\r') {
+                next++;
+            }
+            if (next < content.length() && content.charAt(next) == '\n') {
+                next++;
+            }
+
+            final Line line = new Line(content.substring(start, end), content.substring(end, next));
+            final boolean continues = line.continues();
+            if (!continued && !continues) {
+                line.findValue();
+                try {
+                    if (line.valueStart >= 0) {
+                        line.key();
+                        line.value();
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(e.getMessage() + " in line " + (lines.size() + 1), e);
+                }
+            }
+            continued = continues && (continued || !line.isComment());
+            lines.add(line);
+            start = next;
+        }
+    }
+
+    /**
+     * @param file the property file
+     * @return the file content
+     * @throws IOException if the file could not be read or holds a malformed \\uxxxx escape
+     */
+    static PropertiesFile read(File file) throws IOException {
+        final String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+        try {
+            return new PropertiesFile(content);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage() + " of " + file, e);
+        }
+    }
+
+    /**
+     * @return the unescaped values of all single line entries, in order of appearance
+     */
+    public List<String> values() {
+        final List<String> values = new ArrayList<>();
+        for (Line line : lines) {
+            if (line.valueStart >= 0) {
+                values.add(line.value());
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Replaces the values one by one, so that equal values can be given different new values.
+     *
+     * @param replacement gives the new value for each unescaped value, in order of appearance, or <code>null</code>
+     *                    to keep the value
+     * @return the number of replaced values
+     */
+    public int replaceValues(UnaryOperator<String> replacement) {
+        int replaced = 0;
+        for (Line line : lines) {
+            if (line.valueStart >= 0) {
+                final String newValue = replacement.apply(line.value());
+                if (newValue != null) {
+                    line.replaceValue(newValue);
+                    replaced++;
+                }
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * @return the raw text of each entry continued on the next line, by the number of its first line
+     */
+    public Map<Integer, String> continuedEntries() {
+        final Map<Integer, String> entries = new LinkedHashMap<>();
+        boolean continued = false;
+        int first = 0;
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines.size(); i++) {
+            final Line line = lines.get(i);
+            final boolean continues = line.continues();
+            if (!continued && continues && !line.isComment()) {
+                first = i + 1;
+                text.setLength(0);
+            }
+            if (first > 0) {
+                text.append(line.text).append(line.terminator);
+            }
+            continued = continues && (continued || !line.isComment());
+            if (!continued && first > 0) {
+                entries.put(first, text.toString());
+                first = 0;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @param key the property key
+     * @return the unescaped value of the last single line entry with the given key, <code>null</code> if there is none
+     */
+    public String getProperty(String key) {
+        final Line line = find(key);
+        return line != null ? line.value() : null;
+    }
+
+    /**
+     * Replaces the value of the last single line entry with the given key. If there is no such entry, a new one is
+     * added in front of the first entry.
+     *
+     * @param key   the property key
+     * @param value the new value
+     */
+    public void setProperty(String key, String value) {
+        final Line existing = find(key);
+        if (existing != null) {
+            existing.replaceValue(value);
+            return;
+        }
+
+        int index = 0;
+        while (index < lines.size() && lines.get(index).valueStart < 0) {
+            index++;
+        }
+        final String terminator = lines.isEmpty() || lines.get(0).terminator.isEmpty()
+                ? System.lineSeparator()
+                : lines.get(0).terminator;
+        final Line line = new Line(Line.escape(key, true) + "=", terminator);
+        line.findValue();
+        line.replaceValue(value);
+        if (index == lines.size() && index > 0 && lines.get(index - 1).terminator.isEmpty()) {
+            lines.get(index - 1).terminator = terminator;
+        }
+        lines.add(index, line);
+    }
+
+    /**
+     * Removes all single line entries with the given key.
+     *
+     * @param key the property key
+     */
+    public void removeProperty(String key) {
+        lines.removeIf(line -> line.valueStart >= 0 && line.key().equals(key));
+    }
+
+    private Line find(String key) {
+        Line found = null;
+        for (Line line : lines) {
+            if (line.valueStart >= 0 && line.key().equals(key)) {
+                found = line;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Writes the content to a temporary file first, which then replaces the given file in a single step.
+     *
+     * @param file the property file
+     * @throws IOException if the file could not be written
+     */
+    public void write(File file) throws IOException {
+        final StringBuilder content = new StringBuilder();
+        for (Line line : lines) {
+            content.append(line.text).append(line.terminator);
+        }
+
+        final Path target = file.getAbsoluteFile().toPath();
+        final Path temporary = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+        try {
+            Files.write(temporary, content.toString().getBytes(StandardCharsets.ISO_8859_1));
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    private static class Line {
+        private String text;
+
+        private String terminator;
+
+        /**
+         * The position where the value starts, -1 for comments, blank lines and continued values.
+         */
+        private int valueStart = -1;
+
+        private int keyStart;
+
+        private int keyEnd;
+
+        private Line(String text, String terminator) {
+            this.text = text;
+            this.terminator = terminator;
+        }
+
+        private boolean isComment() {
+            int i = 0;
+            while (i < text.length() && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            return i < text.length() && (text.charAt(i) == '#' || text.charAt(i) == '!');
+        }
+
+        private boolean continues() {
+            int backslashes = 0;
+            for (int i = text.length() - 1; i >= 0 && text.charAt(i) == '\\'; i--) {
+                backslashes++;
+            }
+            return backslashes % 2 == 1;
+        }
+
+        private void findValue() {
+            int i = 0;
+            while (i < text.length() && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (i == text.length() || isComment()) {
+                return;
+            }
+
+            keyStart = i;
+            boolean escaped = false;
+            boolean separated = false;
+            for (; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '=' || c == ':') {
+                    keyEnd = i;
+                    separated = true;
+                    i++;
+                    break;
+                } else if (isWhitespace(c)) {
+                    break;
+                }
+            }
+            if (!separated) {
+                keyEnd = i;
+            }
+            while (i < text.length() && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (!separated && i < text.length() && (text.charAt(i) == '=' || text.charAt(i) == ':')) {
+                i++;
+                while (i < text.length() && isWhitespace(text.charAt(i))) {
+                    i++;
+                }
+            }
+            valueStart = i;
+        }
+
+        private String key() {
+            return unescape(text.substring(keyStart, keyEnd));
+        }
+
+        private String value() {
+            return unescape(text.substring(valueStart));
+        }
+
+        private void replaceValue(String value) {
+            text = text.substring(0, valueStart) + escape(value, false);
+        }
+
+        private static String unescape(String raw) {
+            final StringBuilder value = new StringBuilder(raw.length());
+            for (int i = 0; i < raw.length(); i++) {
+                char c = raw.charAt(i);
+                if (c == '\\' && i + 1 < raw.length()) {
+                    c = raw.charAt(++i);
+                    if (c == 'u') {
+                        c = unescapeUnicode(raw, i + 1);
+                        i += 4;
+                    } else if (c == 't') {
+                        c = '\t';
+                    } else if (c == 'n') {
+                        c = '\n';
+                    } else if (c == 'r') {
+                        c = '\r';
+                    } else if (c == 'f') {
+                        c = '\f';
+                    }
+                }
+                value.append(c);
+            }
+            return value.toString();
+        }
+
+        private static char unescapeUnicode(String raw, int start) {
+            if (start + 4 > raw.length()) {
+                throw new IllegalArgumentException("Malformed \\uxxxx encoding");
+            }
+            int c = 0;
+            for (int i = start; i < start + 4; i++) {
+                final int digit = Character.digit(raw.charAt(i), 16);
+                if (digit < 0) {
+                    throw new IllegalArgumentException("Malformed \\uxxxx encoding");
+                }
+                c = (c << 4) + digit;
+            }
+            return (char) c;
+        }
+
+        private static String escape(String value, boolean key) {
+            final StringBuilder raw = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                switch (c) {
+                    case '\\':
+                        raw.append("\\\\");
+                        break;
+                    case '\t':
+                        raw.append("\\t");
+                        break;
+                    case '\n':
+                        raw.append("\\n");
+                        break;
+                    case '\r':
+                        raw.append("\\r");
+                        break;
+                    case '\f':
+                        raw.append("\\f");
+                        break;
+                    default:
+                        if (c == ' ' && (i == 0 || key)) {
+                            raw.append("\\ ");
+                        } else if (key && (c == '=' || c == ':' || c == '#' || c == '!')) {
+                            raw.append('\\').append(c);
+                        } else if (c < 0x20 || c > 0xff) {
+                            raw.append(String.format("\\u%04X", (int) c));
+                        } else {
+                            raw.append(c);
+                        }
+                }
+            }
+            return raw.toString();
+        }
+    }
+}
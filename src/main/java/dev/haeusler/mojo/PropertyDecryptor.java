@@ -0,0 +1,63 @@
+package dev.haeusler.mojo;
+
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Decrypts values surrounded by ENC(...), either one after another or fanned out across a fixed number of threads.
+ */
+class PropertyDecryptor {
+
+    private final StringEncryptor encryptor;
+
+    private final int parallelism;
+
+    private final DecryptionCache cache;
+
+    /**
+     * @param encryptor   the encryptor used for decryption, has to be thread-safe if <code>parallelism</code> is
+     *                    greater than one
+     * @param parallelism the number of values decrypted concurrently
+     */
+    PropertyDecryptor(StringEncryptor encryptor, int parallelism) {
+        this(encryptor, parallelism, null);
+    }
+
+    /**
+     * @param encryptor   the encryptor used for decryption, has to be thread-safe if <code>parallelism</code> is
+     *                    greater than one
+     * @param parallelism the number of values decrypted concurrently
+     * @param cache       values decrypted before, may be <code>null</code>
+     */
+    PropertyDecryptor(StringEncryptor encryptor, int parallelism, DecryptionCache cache) {
+        this.encryptor = encryptor;
+        this.parallelism = Math.max(1, parallelism);
+        this.cache = cache;
+    }
+
+    /**
+     * Decrypts all given values. The returned map is ordered like the given values, regardless of the order in which
+     * the decryptions completed.
+     *
+     * @param encryptedValues values surrounded by ENC(...)
+     * @return the decrypted value for each encrypted value
+     * @throws InterruptedException when interrupted while waiting for the decryption to complete
+     */
+    public Map<String, String> decrypt(Collection<String> encryptedValues) throws InterruptedException {
+        return new ParallelMapper(parallelism).map(encryptedValues, this::decrypt);
+    }
+
+    /**
+     * @param encryptedValue a value surrounded by ENC(...)
+     * @return the decrypted value
+     */
+    String decrypt(String encryptedValue) {
+        if (cache != null) {
+            return cache.decrypt(encryptedValue, value -> PropertyValueEncryptionUtils.decrypt(value, encryptor));
+        }
+        return PropertyValueEncryptionUtils.decrypt(encryptedValue, encryptor);
+    }
+}
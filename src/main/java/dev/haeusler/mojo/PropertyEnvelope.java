@@ -0,0 +1,148 @@
+package dev.haeusler.mojo;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * An alternative to Jasypt's per-value salt for property files with many encrypted values: the file carries a single
+ * header with the salt and the number of iterations for deriving the key from the password, and every value surrounded
+ * by GCM(...) is AES-GCM encrypted under that key with its own nonce. Decrypting a file thus costs one key derivation,
+ * regardless of the number of values.
+ * <p>
+ * The header is the value of the property <code>jasypt.envelope</code>, e.g.
+ * <code>pbkdf2-sha256:100000:c2FsdHNhbHRzYWx0c2FsdA==</code>. It is bound to every value as additional authenticated
+ * data.
+ */
+class PropertyEnvelope {
+
+    /**
+     * The key of the property holding the header.
+     */
+    static final String HEADER_KEY = "jasypt.envelope";
+
+    private static final String KEY_DERIVATION = "pbkdf2-sha256";
+
+    private static final String PREFIX = "GCM(";
+
+    private static final String SUFFIX = ")";
+
+    private static final int SALT_SIZE_BYTES = 16;
+
+    /**
+     * The largest number of iterations accepted from a header, far above any sensible configuration but low enough
+     * that a corrupted or crafted header cannot stall the build.
+     */
+    private static final int MAX_ITERATIONS = 10_000_000;
+
+    private final String header;
+
+    private final String password;
+
+    private final byte[] salt;
+
+    private final int iterations;
+
+    private AesGcmCipher cipher;
+
+    private PropertyEnvelope(String header, String password, byte[] salt, int iterations) {
+        this.header = header;
+        this.password = password;
+        this.salt = salt;
+        this.iterations = iterations;
+    }
+
+    /**
+     * @param password   the password
+     * @param iterations the number of hashing iterations applied to obtain the key
+     * @return an envelope with a new random salt
+     */
+    static PropertyEnvelope create(String password, int iterations) {
+        final byte[] salt = AesGcmCipher.randomBytes(SALT_SIZE_BYTES);
+        final String header = KEY_DERIVATION + ':' + iterations + ':' + Base64.getEncoder().encodeToString(salt);
+        return new PropertyEnvelope(header, password, salt, iterations);
+    }
+
+    /**
+     * @param header   the header of a property file
+     * @param password the password
+     * @return the envelope described by the header
+     * @throws IllegalArgumentException if the header is malformed or has an invalid number of iterations
+     */
+    static PropertyEnvelope parse(String header, String password) {
+        final String[] parts = header.trim().split(":");
+        if (parts.length != 3 || !KEY_DERIVATION.equals(parts[0])) {
+            throw new IllegalArgumentException("Unsupported " + HEADER_KEY + " header: " + header);
+        }
+        final byte[] salt;
+        final int iterations;
+        try {
+            salt = Base64.getDecoder().decode(parts[2]);
+            iterations = Integer.parseInt(parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed " + HEADER_KEY + " header: " + header, e);
+        }
+        if (iterations < 1 || iterations > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("Invalid number of iterations " + iterations + " in " + HEADER_KEY
+                    + " header, expected 1 to " + MAX_ITERATIONS);
+        }
+        return new PropertyEnvelope(header.trim(), password, salt, iterations);
+    }
+
+    /**
+     * @param value a property value
+     * @return <code>true</code> if the value is surrounded by GCM(...)
+     */
+    static boolean isEnvelopeValue(String value) {
+        if (value == null) {
+            return false;
+        }
+        final String trimmedValue = value.trim();
+        return trimmedValue.startsWith(PREFIX) && trimmedValue.endsWith(SUFFIX);
+    }
+
+    /**
+     * @return the header to be stored with the encrypted values
+     */
+    public String header() {
+        return header;
+    }
+
+    /**
+     * @param value the value to be encrypted
+     * @return the encrypted value, surrounded by GCM(...)
+     * @throws GeneralSecurityException if the value could not be encrypted
+     */
+    public String encrypt(String value) throws GeneralSecurityException {
+        final byte[] encrypted = cipher().encrypt(value.getBytes(StandardCharsets.UTF_8), aad());
+        return PREFIX + Base64.getEncoder().encodeToString(encrypted) + SUFFIX;
+    }
+
+    /**
+     * @param envelopeValue the value surrounded by GCM(...)
+     * @return the decrypted value
+     * @throws GeneralSecurityException if the value could not be decrypted, e.g. because of a wrong password
+     */
+    public String decrypt(String envelopeValue) throws GeneralSecurityException {
+        final String trimmedValue = envelopeValue.trim();
+        final byte[] encrypted;
+        try {
+            encrypted = Base64.getDecoder().decode(
+                    trimmedValue.substring(PREFIX.length(), trimmedValue.length() - SUFFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new GeneralSecurityException("Malformed value " + envelopeValue, e);
+        }
+        return new String(cipher().decrypt(encrypted, aad()), StandardCharsets.UTF_8);
+    }
+
+    private byte[] aad() {
+        return header.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private synchronized AesGcmCipher cipher() throws GeneralSecurityException {
+        if (cipher == null) {
+            cipher = new AesGcmCipher(AesGcmCipher.deriveKey(password, salt, iterations));
+        }
+        return cipher;
+    }
+}
@@ -0,0 +1,187 @@
+package dev.haeusler.mojo;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Resolves many properties at once. Every value is parsed into its placeholder references only once, and the
+ * properties are resolved in topological order of their references, so that a value referenced by many properties is
+ * expanded only once. All circular definitions are collected and reported together.
+ */
+class PropertyGraph {
+    private static final String PREFIX = "${";
+
+    private static final char SUFFIX = '}';
+
+    private final UnaryOperator<String> lookup;
+
+    private final IntConsumer expansions;
+
+    private final Map<String, Node> nodes = new HashMap<>();
+
+    /**
+     * @param lookup     returns the unresolved value of a key, or <code>null</code> if unknown
+     * @param expansions notified with the nesting depth of every reference expanded
+     */
+    PropertyGraph(UnaryOperator<String> lookup, IntConsumer expansions) {
+        this.lookup = lookup;
+        this.expansions = expansions;
+    }
+
+    /**
+     * @param keys the keys to be resolved
+     * @return the resolved value of every given key, unknown keys resolve to an empty value
+     * @throws IllegalArgumentException listing every circular definition found
+     */
+    public Map<String, String> resolve(Collection<String> keys) {
+        final List<String> cycles = new ArrayList<>();
+        final List<Node> path = new ArrayList<>();
+
+        for (String key : keys) {
+            final Node root = node(key);
+            if (root == null || root.state != Node.NEW) {
+                continue;
+            }
+
+            enter(root, path);
+            while (!path.isEmpty()) {
+                final Node current = path.get(path.size() - 1);
+                if (current.next < current.references.length) {
+                    final Node reference = node(current.references[current.next++]);
+                    if (reference == null || reference.state == Node.RESOLVED) {
+                        continue;
+                    }
+                    if (reference.state == Node.ACTIVE) {
+                        cycles.add(describeCycle(path, reference));
+                    } else {
+                        enter(reference, path);
+                    }
+                } else {
+                    current.resolve(this);
+                    path.remove(path.size() - 1);
+                }
+            }
+        }
+
+        if (!cycles.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", cycles));
+        }
+
+        final Map<String, String> values = new LinkedHashMap<>();
+        for (String key : keys) {
+            final Node node = nodes.get(key);
+            values.put(key, node != null ? node.resolved : "");
+        }
+        return values;
+    }
+
+    /**
+     * @param value an unresolved value
+     * @return the keys of all placeholders in the value, in order of occurrence
+     */
+    static List<String> references(String value) {
+        final List<String> references = new ArrayList<>();
+        int position = 0;
+        int prefixPos;
+        int suffixPos;
+        while ((prefixPos = value.indexOf(PREFIX, position)) >= 0
+                && (suffixPos = value.indexOf(SUFFIX, prefixPos + PREFIX.length())) >= 0) {
+            references.add(value.substring(prefixPos + PREFIX.length(), suffixPos));
+            position = suffixPos + 1;
+        }
+        return references;
+    }
+
+    private static void enter(Node node, List<Node> path) {
+        node.state = Node.ACTIVE;
+        path.add(node);
+    }
+
+    private static String describeCycle(List<Node> path, Node reference) {
+        final StringBuilder buffer = new StringBuilder("Circular property definition: ");
+        for (int i = path.indexOf(reference); i < path.size(); i++) {
+            final Node node = path.get(i);
+            buffer.append(node.key).append("=").append(node.value).append(" -> ");
+        }
+        return buffer.append(reference.key).append("=").append(reference.value).toString();
+    }
+
+    private Node node(String key) {
+        if (nodes.containsKey(key)) {
+            return nodes.get(key);
+        }
+        final String value = lookup.apply(key);
+        final Node node = value != null ? new Node(key, value) : null;
+        nodes.put(key, node);
+        return node;
+    }
+
+    private static class Node {
+        private static final int NEW = 0;
+
+        private static final int ACTIVE = 1;
+
+        private static final int RESOLVED = 2;
+
+        private final String key;
+
+        private final String value;
+
+        /**
+         * The literal text before, between and after the references.
+         */
+        private final String[] literals;
+
+        private final String[] references;
+
+        private int state = NEW;
+
+        private int next;
+
+        /**
+         * The deepest nesting of references within the value.
+         */
+        private int depth;
+
+        private String resolved;
+
+        private Node(String key, String value) {
+            this.key = key;
+            this.value = value;
+
+            final List<String> literals = new ArrayList<>();
+            final List<String> references = new ArrayList<>();
+            int position = 0;
+            int prefixPos;
+            int suffixPos;
+            while ((prefixPos = value.indexOf(PREFIX, position)) >= 0
+                    && (suffixPos = value.indexOf(SUFFIX, prefixPos + PREFIX.length())) >= 0) {
+                literals.add(value.substring(position, prefixPos));
+                references.add(value.substring(prefixPos + PREFIX.length(), suffixPos));
+                position = suffixPos + 1;
+            }
+            literals.add(value.substring(position));
+
+            this.literals = literals.toArray(new String[0]);
+            this.references = references.toArray(new String[0]);
+        }
+
+        private void resolve(PropertyGraph graph) {
+            final StringBuilder buffer = new StringBuilder(value.length());
+            for (int i = 0; i < references.length; i++) {
+                buffer.append(literals[i]);
+                final Node reference = graph.nodes.get(references[i]);
+                if (reference != null && reference.state == RESOLVED) {
+                    depth = Math.max(depth, reference.depth + 1);
+                    graph.expansions.accept(reference.depth + 1);
+                    buffer.append(reference.resolved);
+                } else {
+                    buffer.append(PREFIX).append(references[i]).append(SUFFIX);
+                }
+            }
+            resolved = buffer.append(literals[references.length]).toString();
+            state = RESOLVED;
+        }
+    }
+}
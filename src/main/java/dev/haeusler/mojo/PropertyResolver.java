@@ -19,10 +19,33 @@ package dev.haeusler.mojo;
  * under the License.
  */
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 
 class PropertyResolver {
 
+    /**
+     * The path tracking is reused by all resolutions of a thread.
+     */
+    private final ThreadLocal<CircularDefinitionPreventer> circularDefinitionPreventers =
+            ThreadLocal.withInitial(CircularDefinitionPreventer::new);
+
+    private final LongAdder expandedPlaceholders = new LongAdder();
+
+    private final AtomicInteger maxDepth = new AtomicInteger();
+
     /**
      * Retrieves a property value, replacing values like ${token} using the Properties to look them up. Shamelessly
      * adapted from:
@@ -38,27 +61,173 @@ class PropertyResolver {
      * @throws IllegalArgumentException when properties are circularly defined
      */
     public String getPropertyValue(String key, Properties properties, Properties environment) {
-        String value = properties.getProperty(key);
+        return getPropertyValue(key, properties, environmentOf(environment));
+    }
 
-        ExpansionBuffer buffer = new ExpansionBuffer(value);
+    /**
+     * Retrieves a property value like {@link #getPropertyValue(String, Properties, Properties)}, but only looks up the
+     * environment variables actually referenced.
+     *
+     * @param key         property key
+     * @param properties  project properties
+     * @param environment returns the value of an environment variable, or <code>null</code> if not defined
+     * @return resolved property value
+     * @throws IllegalArgumentException when properties are circularly defined
+     */
+    public String getPropertyValue(String key, Properties properties, UnaryOperator<String> environment) {
+        return getPropertyValue(key, (UnaryOperator<String>) properties::getProperty, environment);
+    }
 
-        CircularDefinitionPreventer circularDefinitionPreventer =
-                new CircularDefinitionPreventer().visited(key, value);
+    /**
+     * Retrieves a property value like {@link #getPropertyValue(String, Properties, UnaryOperator)}, but looks up the
+     * properties with the given function, e.g. in properties not yet added to the project.
+     *
+     * @param key         property key
+     * @param properties  returns the unresolved value of a property, or <code>null</code> if not defined
+     * @param environment returns the value of an environment variable, or <code>null</code> if not defined
+     * @return resolved property value
+     * @throws IllegalArgumentException when properties are circularly defined
+     */
+    public String getPropertyValue(String key, UnaryOperator<String> properties, UnaryOperator<String> environment) {
+        String value = properties.apply(key);
 
-        while (buffer.hasMoreLegalPlaceholders()) {
-            String newKey = buffer.extractPropertyKey();
-            String newValue = fromPropertiesThenSystemThenEnvironment(newKey, properties, environment);
+        CircularDefinitionPreventer circularDefinitionPreventer = circularDefinitionPreventers.get();
+        JfrEvents.ResolveKey event = new JfrEvents.ResolveKey();
+        event.begin();
+        try {
+            circularDefinitionPreventer.visited(key, value);
 
-            circularDefinitionPreventer.visited(newKey, newValue);
+            PlaceholderExpander expander = new PlaceholderExpander(
+                    newKey -> fromPropertiesThenSystemThenEnvironment(newKey, properties, environment),
+                    circularDefinitionPreventer, depth -> {
+                        expanded(depth);
+                        event.expanded(depth);
+                    });
 
-            buffer.add(newKey, newValue);
+            return expander.expand(value);
+        } finally {
+            circularDefinitionPreventer.reset();
+            event.key = key;
+            event.commit();
         }
+    }
+
+    /**
+     * Retrieves the values of all properties at once, like {@link #getPropertyValue(String, Properties, Properties)}.
+     * Values referenced by several properties are only resolved once, and all circular definitions are reported
+     * together instead of failing on the first.
+     *
+     * @param properties  project properties
+     * @param environment environment variables
+     * @return resolved value of every property
+     * @throws IllegalArgumentException when properties are circularly defined
+     */
+    public Map<String, String> getPropertyValues(Properties properties, Properties environment) {
+        return getPropertyValues(properties, environmentOf(environment));
+    }
+
+    /**
+     * Retrieves the values of all properties at once like {@link #getPropertyValues(Properties, Properties)}, but only
+     * looks up the environment variables actually referenced.
+     *
+     * @param properties  project properties
+     * @param environment returns the value of an environment variable, or <code>null</code> if not defined
+     * @return resolved value of every property
+     * @throws IllegalArgumentException when properties are circularly defined
+     */
+    public Map<String, String> getPropertyValues(Properties properties, UnaryOperator<String> environment) {
+        return getPropertyValues(properties.stringPropertyNames(), properties::getProperty, environment);
+    }
+
+    /**
+     * Retrieves the values of the given properties at once like {@link #getPropertyValues(Properties, Properties)},
+     * but looks up the properties with the given function, e.g. in properties not yet added to the project.
+     *
+     * @param keys        the keys of the properties to be resolved
+     * @param properties  returns the unresolved value of a property, or <code>null</code> if not defined
+     * @param environment returns the value of an environment variable, or <code>null</code> if not defined
+     * @return resolved value of every given property
+     * @throws IllegalArgumentException when properties are circularly defined
+     */
+    public Map<String, String> getPropertyValues(Collection<String> keys, UnaryOperator<String> properties,
+                                                 UnaryOperator<String> environment) {
+        JfrEvents.ResolveAll event = new JfrEvents.ResolveAll();
+        event.begin();
+        PropertyGraph graph = new PropertyGraph(
+                key -> fromPropertiesThenSystemThenEnvironment(key, properties, environment), depth -> {
+                    expanded(depth);
+                    event.expanded(depth);
+                });
+
+        try {
+            return graph.resolve(keys);
+        } finally {
+            event.keys = keys.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Finds the properties whose values depend on the given properties, i.e. reference one of them directly or through
+     * other properties. Every value is only scanned once for placeholders.
+     *
+     * @param keys       the keys of the properties
+     * @param properties project properties
+     * @return the given keys followed by the keys of all dependent properties
+     */
+    public Set<String> getDependents(Collection<String> keys, Properties properties) {
+        final Map<String, List<String>> referencedBy = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            final Object value = properties instanceof LazyDecryptingProperties
+                    ? ((LazyDecryptingProperties) properties).getRaw(key)
+                    : properties.get(key);
+            if (value instanceof String && ((String) value).contains("${")) {
+                for (String reference : PropertyGraph.references((String) value)) {
+                    referencedBy.computeIfAbsent(reference, r -> new ArrayList<>()).add(key);
+                }
+            }
+        }
+
+        final Set<String> dependents = new LinkedHashSet<>(keys);
+        final Deque<String> pending = new ArrayDeque<>(keys);
+        while (!pending.isEmpty()) {
+            for (String dependent : referencedBy.getOrDefault(pending.poll(), Collections.emptyList())) {
+                if (dependents.add(dependent)) {
+                    pending.add(dependent);
+                }
+            }
+        }
+        return dependents;
+    }
+
+    /**
+     * @return the number of placeholders expanded by all resolutions so far
+     */
+    public long getExpandedPlaceholders() {
+        return expandedPlaceholders.sum();
+    }
+
+    /**
+     * @return the deepest nesting of placeholders expanded by all resolutions so far
+     */
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    private void expanded(int depth) {
+        expandedPlaceholders.increment();
+        if (depth > maxDepth.get()) {
+            maxDepth.accumulateAndGet(depth, Math::max);
+        }
+    }
 
-        return buffer.toString();
+    private static UnaryOperator<String> environmentOf(Properties environment) {
+        return environment != null ? environment::getProperty : name -> null;
     }
 
-    private String fromPropertiesThenSystemThenEnvironment(String key, Properties properties, Properties environment) {
-        String value = properties.getProperty(key);
+    private String fromPropertiesThenSystemThenEnvironment(String key, UnaryOperator<String> properties,
+                                                           UnaryOperator<String> environment) {
+        String value = properties.apply(key);
 
         // try global environment
         if (value == null) {
@@ -66,8 +235,8 @@ class PropertyResolver {
         }
 
         // try environment variable
-        if (value == null && key.startsWith("env.") && environment != null) {
-            value = environment.getProperty(key.substring(4));
+        if (value == null && key.startsWith("env.")) {
+            value = environment.apply(key.substring(4));
         }
 
         return value;
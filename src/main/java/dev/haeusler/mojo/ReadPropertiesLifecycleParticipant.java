@@ -0,0 +1,173 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * Reads property files and URLs like <code>read-project-properties</code>, but only once per session, when the plugin
+ * is registered as a core extension in <code>.mvn/extensions.xml</code>. The properties are read when the session
+ * starts and added to the user properties of the project building request only, so that they are available for the
+ * interpolation of all project models, but not to the session user properties, which are passed on to forked JVMs such
+ * as test forks. They are also added to the properties of every project once the projects are read.
+ * <p>
+ * The password <code>jasypt.encryptor.password</code> is never added, even if it was read from a file. The properties
+ * are kept for the current session only and dropped when it ends, so that a long-lived JVM such as a Maven daemon reads
+ * them again, with the configuration of the next session.
+ * <p>
+ * When the plugin is registered as a build extension instead, the properties are only read once the projects are
+ * read, which is too late for the interpolation of the models.
+ * <p>
+ * The extension is configured with user or system properties prefixed with <code>jasypt.extension.</code>, e.g. in
+ * <code>.mvn/maven.config</code>. Nothing is read unless <code>jasypt.extension.files</code> or
+ * <code>jasypt.extension.urls</code> is set.
+ */
+@Named("jasypt-read-project-properties")
+@Singleton
+public class ReadPropertiesLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+
+    /**
+     * The prefix of the configuration properties.
+     */
+    static final String PREFIX = "jasypt.extension.";
+
+    /**
+     * The session the properties were read for, <code>null</code> until read.
+     */
+    private MavenSession session;
+
+    /**
+     * The properties read for <code>session</code>, <code>null</code> until read.
+     */
+    private Properties properties;
+
+    @Override
+    public void afterSessionStart(MavenSession session) throws MavenExecutionException {
+        final Properties properties = read(session);
+        if (!properties.isEmpty()) {
+            // the building request shares the session user properties, so it gets a copy holding the secrets
+            final ProjectBuildingRequest request = session.getRequest().getProjectBuildingRequest();
+            final Properties userProperties = new Properties();
+            userProperties.putAll(request.getUserProperties());
+            userProperties.putAll(properties);
+            request.setUserProperties(userProperties);
+        }
+    }
+
+    @Override
+    public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+        final Properties properties = read(session);
+        if (!properties.isEmpty()) {
+            for (MavenProject project : session.getProjects()) {
+                project.getProperties().putAll(properties);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void afterSessionEnd(MavenSession session) {
+        if (this.session == session) {
+            this.session = null;
+            properties = null;
+        }
+    }
+
+    /**
+     * @return the properties read for the given session, read only once per session
+     */
+    private synchronized Properties read(MavenSession session) throws MavenExecutionException {
+        if (properties != null && this.session == session) {
+            return properties;
+        }
+        this.session = session;
+        properties = null;
+
+        final String files = getConfiguration(session, "files");
+        final String urls = getConfiguration(session, "urls");
+        if (files == null && urls == null) {
+            properties = new Properties();
+            return properties;
+        }
+
+        final MavenProject project = new MavenProject();
+        final ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+        mojo.setLog(new Slf4jLog(LoggerFactory.getLogger(ReadPropertiesLifecycleParticipant.class)));
+        mojo.setProject(project);
+        mojo.setSession(session);
+        if (files != null) {
+            final File base = session.getRequest().getMultiModuleProjectDirectory();
+            mojo.setFiles(Arrays.stream(split(files))
+                    .map(File::new)
+                    .map(file -> file.isAbsolute() || base == null ? file : new File(base, file.getPath()))
+                    .toArray(File[]::new));
+        }
+        if (urls != null) {
+            mojo.setUrls(split(urls));
+        }
+        configure(session, "jasypt.encryptor.password", mojo::setJasyptEncryptorPassword);
+        configure(session, PREFIX + "keyPrefix", mojo::setKeyPrefix);
+        configure(session, PREFIX + "quiet", value -> mojo.setQuiet(Boolean.parseBoolean(value)));
+        configure(session, PREFIX + "memoizedResolution",
+                value -> mojo.setMemoizedResolution(Boolean.parseBoolean(value)));
+        configure(session, PREFIX + "parallelDecryption",
+                value -> mojo.setParallelDecryption(Boolean.parseBoolean(value)));
+        configure(session, PREFIX + "cacheDecryptedValues",
+                value -> mojo.setCacheDecryptedValues(Boolean.parseBoolean(value)));
+        configure(session, PREFIX + "algorithm", mojo::setAlgorithm);
+        configure(session, PREFIX + "poolSize", mojo::setPoolSize);
+        configure(session, PREFIX + "keyObtentionIteration",
+                value -> mojo.setKeyObtentionIteration(Integer.parseInt(value)));
+        configure(session, PREFIX + "providerClassName", mojo::setProviderClassName);
+        configure(session, PREFIX + "saltGeneratorClassName", mojo::setSaltGeneratorClassName);
+        configure(session, PREFIX + "ivGeneratorClassName", mojo::setIvGeneratorClassName);
+        configure(session, PREFIX + "stringOutputType", mojo::setStringOutputType);
+        configure(session, PREFIX + "keyFile", value -> mojo.setKeyFile(new File(value)));
+        configure(session, PREFIX + "keyStore", value -> mojo.setKeyStore(new File(value)));
+        configure(session, PREFIX + "keyStoreType", mojo::setKeyStoreType);
+        configure(session, PREFIX + "keyAlias", mojo::setKeyAlias);
+
+        try {
+            mojo.execute();
+        } catch (MojoExecutionException | MojoFailureException | IllegalArgumentException e) {
+            throw new MavenExecutionException("Cannot read Jasypt properties: " + e.getMessage(), e);
+        }
+        properties = new Properties();
+        properties.putAll(project.getProperties());
+        properties.remove("jasypt.encryptor.password");
+        return properties;
+    }
+
+    private static String getConfiguration(MavenSession session, String name) {
+        final String key = PREFIX + name;
+        final String value = session.getUserProperties().getProperty(key,
+                session.getSystemProperties().getProperty(key));
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static void configure(MavenSession session, String key, Consumer<String> setter) {
+        final String value = session.getUserProperties().getProperty(key,
+                session.getSystemProperties().getProperty(key));
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
+
+    private static String[] split(String list) {
+        return Arrays.stream(list.split(","))
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty())
+                .toArray(String[]::new);
+    }
+}
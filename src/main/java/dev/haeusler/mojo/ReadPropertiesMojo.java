@@ -27,22 +27,30 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.codehaus.plexus.util.cli.CommandLineUtils;
-import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.jasypt.encryption.StringEncryptor;
 import org.jasypt.properties.PropertyValueEncryptionUtils;
 
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Enumeration;
-import java.util.Properties;
+import java.security.DigestInputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
 
 /**
  * The read-project-properties goal reads property files and URLs and stores the properties as project properties. It
  * serves as an alternate to specifying properties in pom.xml. It is especially useful when making properties defined in
  * a runtime resource available at build time. Encrypted properties will be decrypted.
  * <p>
- * A value is considered "encrypted" when it appears surrounded by ENC(...).
+ * A value is considered "encrypted" when it appears surrounded by ENC(...). Files and URLs ending with
+ * <code>.enc</code> are considered encrypted as a whole and are decrypted while they are read.
  *
  * @author <a href="mailto:zarars@gmail.com">Zarar Siddiqi</a>
  * @author <a href="mailto:Krystian.Nowak@gmail.com">Krystian Nowak</a>
@@ -51,6 +59,11 @@ import java.util.Properties;
 @Mojo(name = "read-project-properties", defaultPhase = LifecyclePhase.NONE, requiresProject = true, threadSafe = true)
 public class ReadPropertiesMojo extends AbstractJasyptMojo {
 
+    /**
+     * The suffix of files encrypted as a whole.
+     */
+    static final String ENCRYPTED_FILE_SUFFIX = ".enc";
+
     /**
      * Used for resolving property placeholders.
      */
@@ -92,12 +105,176 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
     @Parameter
     private String keyPrefix = null;
 
+    /**
+     * Patterns of the keys to be read from the files and URLs, all keys are read if none are given. An asterisk
+     * matches any sequence of characters, e.g. <code>db.*</code>. The patterns apply to the keys without
+     * <code>keyPrefix</code>.
+     */
+    @Parameter
+    private String[] includeKeys = new String[0];
+
+    /**
+     * Patterns of the keys not to be read from the files and URLs, like <code>includeKeys</code>.
+     */
+    @Parameter
+    private String[] excludeKeys = new String[0];
+
+    /**
+     * If all properties should be resolved at once. Values referenced by many properties are then only resolved once,
+     * and all circular definitions are reported together instead of failing on the first.
+     */
+    @Parameter(property = "memoizedResolution", defaultValue = "false")
+    private boolean memoizedResolution = false;
+
+    /**
+     * If all files or all URLs should be read at the same time, on Java 21 and later on virtual threads. The properties
+     * are still merged in the order of declaration, so the last file or URL defining a property takes precedence, just
+     * like when reading one after another. Encrypted <code>.enc</code> files and URLs are read in order on the mojo
+     * thread, since the password may be defined by the files or URLs before.
+     */
+    @Parameter(property = "parallelUrlLoading", defaultValue = "false")
+    private boolean parallelUrlLoading = false;
+
+    /**
+     * If the content of http(s) URLs should be kept on disk. Later builds then send conditional requests based on the
+     * <code>ETag</code> and <code>Last-Modified</code> headers and reuse the cached content if it is unchanged.
+     */
+    @Parameter(property = "urlCache", defaultValue = "false")
+    private boolean urlCache = false;
+
+    /**
+     * The directory holding the content of http(s) URLs if <code>urlCache</code> is enabled.
+     */
+    @Parameter(property = "urlCacheDirectory", defaultValue = "${user.home}/.m2/jasypt-url-cache")
+    private File urlCacheDirectory;
+
+    /**
+     * If the cached content of http(s) URLs should be used without contacting the server. Only applies if
+     * <code>urlCache</code> is enabled, and defaults to Maven's offline mode.
+     */
+    @Parameter(property = "urlCacheOffline", defaultValue = "${settings.offline}")
+    private boolean urlCacheOffline = false;
+
     /**
      * If the plugin should log all decrypted values
      */
     @Parameter(defaultValue = "false")
     private boolean logDecryptedValues = false;
 
+    /**
+     * If encrypted values should be decrypted concurrently, using as many threads as the encryptor pool has
+     * encryptors (see <code>poolSize</code>).
+     */
+    @Parameter(property = "parallelDecryption", defaultValue = "false")
+    private boolean parallelDecryption = false;
+
+    /**
+     * If decrypted values should be shared with all other executions of the current build. Modules of a reactor
+     * reading the same encrypted values with the same encryptor configuration and password will then only decrypt
+     * them once.
+     */
+    @Parameter(property = "cacheDecryptedValues", defaultValue = "false")
+    private boolean cacheDecryptedValues = false;
+
+    /**
+     * If decrypted values of property files should be kept on disk for later builds. A file is only decrypted value by
+     * value again after its content, the encryptor configuration or the password changed. The cached values are stored
+     * encrypted with a key derived from the password.
+     */
+    @Parameter(property = "persistentCache", defaultValue = "false")
+    private boolean persistentCache = false;
+
+    /**
+     * The directory holding the decrypted values of property files if <code>persistentCache</code> is enabled.
+     */
+    @Parameter(property = "persistentCacheDirectory", defaultValue = "${user.home}/.m2/jasypt-cache")
+    private File persistentCacheDirectory;
+
+    /**
+     * If encrypted values should only be decrypted when they are first accessed, e.g. when a plugin parameter or a
+     * filtered resource refers to them. Each value is decrypted at most once. Listing the property names decrypts
+     * nothing, but copying or storing all project properties decrypts all values, and <code>persistentCache</code> does
+     * not apply.
+     */
+    @Parameter(property = "lazyDecryption", defaultValue = "false")
+    private boolean lazyDecryption = false;
+
+    /**
+     * Writes timings and counters of this execution as JSON to <code>statsReportFile</code>. A summary is always
+     * logged.
+     */
+    @Parameter(property = "statsReport", defaultValue = "false")
+    private boolean statsReport = false;
+
+    /**
+     * The file the timings and counters are written to if <code>statsReport</code> is enabled.
+     */
+    @Parameter(property = "statsReportFile",
+            defaultValue = "${project.build.directory}/jasypt/read-project-properties-stats.json")
+    private File statsReportFile;
+
+    /**
+     * If the resolved and decrypted properties should be kept in <code>incrementalSnapshotFile</code>, and restored
+     * from there by later executions as long as the files, the relevant project, system and environment properties and
+     * the encryptor configuration are unchanged. Files are compared by the SHA-256 digest of their content. Does not
+     * apply to URLs, and the password has to be set outside of the files read.
+     */
+    @Parameter(property = "incremental", defaultValue = "false")
+    private boolean incremental = false;
+
+    /**
+     * The file keeping the properties if <code>incremental</code> is enabled. The properties are stored encrypted
+     * with a key derived from the password.
+     */
+    @Parameter(property = "incrementalSnapshotFile",
+            defaultValue = "${project.build.directory}/jasypt/read-project-properties.snapshot")
+    private File incrementalSnapshotFile;
+
+    /**
+     * The timings and counters of this execution.
+     */
+    private final ExecutionStats stats = new ExecutionStats();
+
+    /**
+     * The property files loaded by this execution, for the persistent cache.
+     */
+    private final List<CachedFile> cachedFiles = new ArrayList<>();
+
+    /**
+     * The properties read from the files and URLs by their keys including <code>keyPrefix</code>. They are resolved
+     * and decrypted here and added to the project properties at once.
+     */
+    private final Map<String, String> staged = new LinkedHashMap<>();
+
+    /**
+     * The keys of the staged properties with an ENC(...) or GCM(...) value after resolution.
+     */
+    private final Set<String> encryptedKeys = new LinkedHashSet<>();
+
+    /**
+     * The names of the system properties referenced by placeholders.
+     */
+    private final Set<String> referencedSystemProperties = new TreeSet<>();
+
+    /**
+     * The names of the environment variables referenced by placeholders.
+     */
+    private final Set<String> referencedEnvironment = new TreeSet<>();
+
+    /**
+     * The envelope header for each GCM(...) value loaded from a file or URL with a <code>jasypt.envelope</code> header.
+     */
+    private final Map<String, String> envelopeHeaders = new HashMap<>();
+
+    /**
+     * Sets the password to be used for decryption.
+     *
+     * @param jasyptEncryptorPassword the password to be used.
+     */
+    public void setJasyptEncryptorPassword(String jasyptEncryptorPassword) {
+        this.jasyptEncryptorPassword = jasyptEncryptorPassword;
+    }
+
     /**
      * @param files The files to set for tests.
      */
@@ -128,18 +305,233 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
         this.keyPrefix = keyPrefix;
     }
 
+    /**
+     * @param includeKeys Patterns of the keys to be read, <code>*</code> matches any sequence of characters.
+     */
+    public void setIncludeKeys(String[] includeKeys) {
+        this.includeKeys = includeKeys == null ? new String[0] : includeKeys.clone();
+    }
+
+    /**
+     * @param excludeKeys Patterns of the keys not to be read, <code>*</code> matches any sequence of characters.
+     */
+    public void setExcludeKeys(String[] excludeKeys) {
+        this.excludeKeys = excludeKeys == null ? new String[0] : excludeKeys.clone();
+    }
+
+    /**
+     * @param parallelUrlLoading Set to <code>true</code> to read all files or all URLs at the same time.
+     */
+    public void setParallelUrlLoading(boolean parallelUrlLoading) {
+        this.parallelUrlLoading = parallelUrlLoading;
+    }
+
+    /**
+     * @param urlCache Set to <code>true</code> to keep the content of http(s) URLs on disk.
+     */
+    public void setUrlCache(boolean urlCache) {
+        this.urlCache = urlCache;
+    }
+
+    /**
+     * @param urlCacheDirectory The directory holding the content of http(s) URLs.
+     */
+    public void setUrlCacheDirectory(File urlCacheDirectory) {
+        this.urlCacheDirectory = urlCacheDirectory;
+    }
+
+    /**
+     * @param urlCacheOffline Set to <code>true</code> to use the cached content of http(s) URLs without requests.
+     */
+    public void setUrlCacheOffline(boolean urlCacheOffline) {
+        this.urlCacheOffline = urlCacheOffline;
+    }
+
+    /**
+     * @param memoizedResolution Set to <code>true</code> to resolve all properties at once.
+     */
+    public void setMemoizedResolution(boolean memoizedResolution) {
+        this.memoizedResolution = memoizedResolution;
+    }
+
+    /**
+     * @param parallelDecryption Set to <code>true</code> to decrypt values concurrently.
+     */
+    public void setParallelDecryption(boolean parallelDecryption) {
+        this.parallelDecryption = parallelDecryption;
+    }
+
+    /**
+     * @param cacheDecryptedValues Set to <code>true</code> to share decrypted values within the current build.
+     */
+    public void setCacheDecryptedValues(boolean cacheDecryptedValues) {
+        this.cacheDecryptedValues = cacheDecryptedValues;
+    }
+
+    /**
+     * @param persistentCache Set to <code>true</code> to keep decrypted values of property files on disk.
+     */
+    public void setPersistentCache(boolean persistentCache) {
+        this.persistentCache = persistentCache;
+    }
+
+    /**
+     * @param persistentCacheDirectory The directory holding the decrypted values of property files.
+     */
+    public void setPersistentCacheDirectory(File persistentCacheDirectory) {
+        this.persistentCacheDirectory = persistentCacheDirectory;
+    }
+
+    /**
+     * @param lazyDecryption Set to <code>true</code> to decrypt values when they are first accessed.
+     */
+    public void setLazyDecryption(boolean lazyDecryption) {
+        this.lazyDecryption = lazyDecryption;
+    }
+
+    /**
+     * @param incremental Set to <code>true</code> to restore the properties if the inputs are unchanged.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @param incrementalSnapshotFile The file keeping the properties for later executions.
+     */
+    public void setIncrementalSnapshotFile(File incrementalSnapshotFile) {
+        this.incrementalSnapshotFile = incrementalSnapshotFile;
+    }
+
+    /**
+     * Writes timings and counters of this execution as JSON to <code>statsReportFile</code>.
+     *
+     * @param statsReport <code>true</code> to write the report.
+     */
+    public void setStatsReport(boolean statsReport) {
+        this.statsReport = statsReport;
+    }
+
+    /**
+     * The file the timings and counters are written to if <code>statsReport</code> is enabled.
+     *
+     * @param statsReportFile the report file.
+     */
+    public void setStatsReportFile(File statsReportFile) {
+        this.statsReportFile = statsReportFile;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void execute() throws MojoExecutionException, MojoFailureException {
         checkParameters();
+
+        final IncrementalSnapshot snapshot = buildSnapshot();
+        if (snapshot != null && restoreSnapshot(snapshot)) {
+            return;
+        }
+
+        final long loadStart = System.nanoTime();
         loadFiles();
         loadUrls();
+        stats.loaded(System.nanoTime() - loadStart);
+
+        final long resolveStart = System.nanoTime();
+        final long expandedPlaceholders = resolver.getExpandedPlaceholders();
         resolveProperties();
-        decryptProperties();
+        stats.resolved(System.nanoTime() - resolveStart, resolver.getExpandedPlaceholders() - expandedPlaceholders,
+                resolver.getMaxDepth());
+
+        if (encryptedKeys.isEmpty()) {
+            // nothing to decrypt, so neither the password nor an encryptor is needed
+            project.getProperties().putAll(staged);
+        } else if (lazyDecryption) {
+            deferDecryption();
+        } else {
+            decryptProperties();
+            project.getProperties().putAll(staged);
+            if (snapshot != null) {
+                storeSnapshot(snapshot);
+            }
+        }
+        reportStats();
+    }
+
+    private IncrementalSnapshot buildSnapshot() {
+        if (!incremental) {
+            return null;
+        }
+        if (urls.length > 0 || lazyDecryption || usesKeyFile()) {
+            getLog().info("Incremental mode does not apply to URLs, lazy decryption and key files");
+            return null;
+        }
+
+        final StringBuilder inputs = new StringBuilder(describeEncryptor())
+                .append(";keyPrefix=").append(keyPrefix)
+                .append(";includeKeys=").append(Arrays.toString(includeKeys))
+                .append(";excludeKeys=").append(Arrays.toString(excludeKeys))
+                .append(";memoizedResolution=").append(memoizedResolution);
+        for (File file : files) {
+            inputs.append(";file=").append(file.getAbsolutePath()).append(',');
+            try {
+                // hashing the content is far cheaper than deriving a key, and unlike the modification time exact
+                inputs.append(file.isFile() ? Digests.sha256Hex(file) : "missing");
+            } catch (IOException e) {
+                getLog().debug("Cannot read " + file + ", not using the snapshot: " + e.getMessage());
+                return null;
+            }
+        }
+        final Properties projectProperties = project.getProperties();
+        for (String key : new TreeSet<>(projectProperties.stringPropertyNames())) {
+            final Object value = projectProperties instanceof LazyDecryptingProperties
+                    ? ((LazyDecryptingProperties) projectProperties).getRaw(key)
+                    : projectProperties.get(key);
+            inputs.append(";property=").append(key).append('=').append(value);
+        }
+        return new IncrementalSnapshot(incrementalSnapshotFile, inputs.toString());
+    }
+
+    private boolean restoreSnapshot(IncrementalSnapshot snapshot) {
+        final Map<String, String> properties;
+        try {
+            properties = snapshot.load(getPassword(), getKeyObtentionIteration(), System::getProperty,
+                    this::getSystemEnvVar);
+        } catch (MojoExecutionException | IOException e) {
+            getLog().debug("Cannot restore properties from " + incrementalSnapshotFile + ": " + e.getMessage());
+            return false;
+        }
+        if (properties == null) {
+            return false;
+        }
+        project.getProperties().putAll(properties);
+        getLog().info("Inputs unchanged, restored " + properties.size() + " properties from "
+                + incrementalSnapshotFile);
+        return true;
+    }
+
+    private void storeSnapshot(IncrementalSnapshot snapshot) throws MojoExecutionException {
+        try {
+            snapshot.store(staged, referencedSystemProperties, referencedEnvironment, getPassword(),
+                    getKeyObtentionIteration(), System::getProperty, this::getSystemEnvVar);
+        } catch (IOException e) {
+            getLog().warn("Cannot write " + incrementalSnapshotFile + ": " + e.getMessage());
+        }
+    }
+
+    private void reportStats() {
+        getLog().info(stats.summary());
+        if (statsReport) {
+            try {
+                stats.write(statsReportFile);
+            } catch (IOException e) {
+                getLog().warn("Cannot write stats report " + statsReportFile + ": " + e.getMessage());
+            }
+        }
     }
 
     private void checkParameters() throws MojoExecutionException {
+        checkPoolSize();
         if (files.length > 0 && urls.length > 0) {
             throw new MojoExecutionException(
                     "Set files or URLs but not both - otherwise no order of precedence can be guaranteed");
@@ -147,14 +539,95 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
     }
 
     private void loadFiles() throws MojoExecutionException {
+        final List<Resource> resources = new ArrayList<>();
         for (File file : files) {
-            load(new FileResource(file));
+            resources.add(new FileResource(file));
+        }
+        if (parallelUrlLoading && resources.size() > 1) {
+            loadConcurrently(resources);
+            return;
+        }
+        for (Resource resource : resources) {
+            load(resource);
         }
     }
 
     private void loadUrls() throws MojoExecutionException {
+        final UrlCache cache = buildUrlCache();
+        final List<Resource> resources = new ArrayList<>();
         for (String url : urls) {
-            load(new UrlResource(url));
+            resources.add(new UrlResource(url, cache));
+        }
+        if (parallelUrlLoading && resources.size() > 1) {
+            loadConcurrently(resources);
+            return;
+        }
+        for (Resource resource : resources) {
+            load(resource);
+        }
+    }
+
+    /**
+     * Reads all resources at the same time, but merges them in the order of declaration, so that the order of
+     * precedence is the same as for sequential loading.
+     */
+    private void loadConcurrently(List<Resource> resources) throws MojoExecutionException {
+        final ExecutorService executor = Threads.newIoExecutor(resources.size());
+        try {
+            final List<Resource> pending = new ArrayList<>();
+            final List<MessageDigest> digests = new ArrayList<>();
+            final List<Future<Properties>> fetched = new ArrayList<>();
+            for (Resource resource : resources) {
+                if (resource.isEncrypted()) {
+                    // the password may be defined by the resources before, so they are merged first
+                    mergeFetched(pending, digests, fetched);
+                    load(resource);
+                    continue;
+                }
+                final MessageDigest digest = digestFor(resource);
+                pending.add(resource);
+                digests.add(digest);
+                fetched.add(executor.submit(() -> resource.canBeOpened() ? readProperties(resource, digest) : null));
+            }
+            mergeFetched(pending, digests, fetched);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Merges the fetched resources in order and clears the given lists.
+     */
+    private void mergeFetched(List<Resource> pending, List<MessageDigest> digests, List<Future<Properties>> fetched)
+            throws MojoExecutionException {
+        for (int i = 0; i < pending.size(); i++) {
+            final Properties properties = getFetched(fetched.get(i), pending.get(i));
+            if (properties != null) {
+                addProperties(pending.get(i), properties, digests.get(i));
+            } else {
+                missing(pending.get(i));
+            }
+        }
+        pending.clear();
+        digests.clear();
+        fetched.clear();
+    }
+
+    private UrlCache buildUrlCache() {
+        return urlCache ? new UrlCache(urlCacheDirectory, urlCacheOffline) : null;
+    }
+
+    private Properties getFetched(Future<Properties> fetched, Resource resource) throws MojoExecutionException {
+        try {
+            return fetched.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while reading properties from " + resource, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MojoExecutionException) {
+                throw (MojoExecutionException) e.getCause();
+            }
+            throw new MojoExecutionException("Error reading properties from " + resource, e.getCause());
         }
     }
 
@@ -167,26 +640,104 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
     }
 
     private void loadProperties(Resource resource) throws MojoExecutionException {
+        final MessageDigest digest = digestFor(resource);
+        addProperties(resource, readProperties(resource, digest), digest);
+    }
+
+    /**
+     * @return a digest of the content of the resource for the persistent cache, <code>null</code> if not needed
+     */
+    private MessageDigest digestFor(Resource resource) {
+        return persistentCache && resource instanceof FileResource ? Digests.sha256() : null;
+    }
+
+    private void addProperties(Resource resource, Properties properties, MessageDigest digest) {
+        mergeProperties(properties);
+
+        if (digest != null) {
+            final Set<String> encryptedValues = new HashSet<>();
+            for (String key : properties.stringPropertyNames()) {
+                if (PropertyValueEncryptionUtils.isEncryptedValue(properties.getProperty(key))) {
+                    encryptedValues.add(properties.getProperty(key));
+                }
+            }
+            cachedFiles.add(new CachedFile(((FileResource) resource).file,
+                    Digests.toHex(digest.digest()), encryptedValues));
+        }
+    }
+
+    /**
+     * @param resource the resource to be read
+     * @param digest   updated with the content of the resource, may be <code>null</code>
+     * @return the properties of the resource
+     */
+    private Properties readProperties(Resource resource, MessageDigest digest) throws MojoExecutionException {
         try {
             getLog().debug("Loading properties from " + resource);
 
-            try (InputStream stream = resource.getInputStream()) {
-                if (keyPrefix != null) {
-                    Properties properties = new Properties();
-                    properties.load(stream);
-                    Properties projectProperties = project.getProperties();
-                    for (String key : properties.stringPropertyNames()) {
-                        projectProperties.put(keyPrefix + key, properties.get(key));
-                    }
-                } else {
-                    project.getProperties().load(stream);
-                }
+            final JfrEvents.LoadResource event = new JfrEvents.LoadResource();
+            event.begin();
+            final long start = System.nanoTime();
+            final ExecutionStats.CountingInputStream counting =
+                    new ExecutionStats.CountingInputStream(resource.getInputStream());
+            InputStream stream = digest != null ? new DigestInputStream(counting, digest) : counting;
+            if (resource.isEncrypted()) {
+                // decrypted chunk by chunk while being parsed; only read on the mojo thread, like getPassword requires
+                stream = StreamingFileCipher.decrypt(stream, getPassword());
+            }
+
+            final Properties properties = new Properties();
+            try (InputStream closed = stream) {
+                properties.load(closed);
             }
+            stats.resource(resource.toString(), counting.getCount(), properties.size(), System.nanoTime() - start);
+            event.resource = resource.toString();
+            event.bytes = counting.getCount();
+            event.entries = properties.size();
+            event.commit();
+            return properties;
         } catch (IOException e) {
             throw new MojoExecutionException("Error reading properties from " + resource, e);
         }
     }
 
+    private void mergeProperties(Properties properties) {
+        final String envelopeHeader = (String) properties.remove(PropertyEnvelope.HEADER_KEY);
+        if (includeKeys.length > 0 || excludeKeys.length > 0) {
+            final List<Pattern> included = keyPatterns(includeKeys);
+            final List<Pattern> excluded = keyPatterns(excludeKeys);
+            properties.keySet().removeIf(key -> !(included.isEmpty() || matches(included, (String) key))
+                    || matches(excluded, (String) key));
+        }
+        if (envelopeHeader != null) {
+            for (String key : properties.stringPropertyNames()) {
+                if (PropertyEnvelope.isEnvelopeValue(properties.getProperty(key))) {
+                    envelopeHeaders.put(properties.getProperty(key), envelopeHeader);
+                }
+            }
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            staged.put(keyPrefix != null ? keyPrefix + key : key, properties.getProperty(key));
+        }
+    }
+
+    private static List<Pattern> keyPatterns(String[] patterns) {
+        final List<Pattern> compiled = new ArrayList<>();
+        for (String pattern : patterns) {
+            final StringBuilder regex = new StringBuilder();
+            for (String literal : pattern.split("\\*", -1)) {
+                regex.append(regex.length() == 0 ? "" : ".*").append(Pattern.quote(literal));
+            }
+            compiled.add(Pattern.compile(regex.toString()));
+        }
+        return compiled;
+    }
+
+    private static boolean matches(List<Pattern> patterns, String key) {
+        return patterns.stream().anyMatch(pattern -> pattern.matcher(key).matches());
+    }
+
     private void missing(Resource resource) throws MojoExecutionException {
         if (quiet) {
             getLog().info("Quiet processing - ignoring properties cannot be loaded from " + resource);
@@ -195,70 +746,248 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
         }
     }
 
-    private void resolveProperties() throws MojoExecutionException, MojoFailureException {
-        Properties environment = loadSystemEnvironmentPropertiesWhenDefined();
-        Properties projectProperties = project.getProperties();
+    /**
+     * Resolves the staged properties and the project properties referencing them, staging the resolved values.
+     */
+    private void resolveProperties() throws MojoFailureException {
+        final UnaryOperator<String> environment = name -> {
+            referencedEnvironment.add(name);
+            return getSystemEnvVar(name);
+        };
+        final Properties projectProperties = project.getProperties();
+        final UnaryOperator<String> properties = key -> {
+            final String value = staged.get(key);
+            if (value != null) {
+                return value;
+            }
+            final String projectValue = projectProperties.getProperty(key);
+            if (projectValue != null) {
+                return projectValue;
+            }
+            referencedSystemProperties.add(key);
+            return System.getProperty(key);
+        };
+        final Set<String> keys = resolver.getDependents(staged.keySet(), projectProperties);
+
+        if (memoizedResolution) {
+            try {
+                resolver.getPropertyValues(keys, properties, environment).forEach(this::stage);
+            } catch (IllegalArgumentException e) {
+                throw new MojoFailureException(e.getMessage());
+            }
+            return;
+        }
 
-        for (Enumeration<?> n = projectProperties.propertyNames(); n.hasMoreElements(); ) {
-            String k = (String) n.nextElement();
-            projectProperties.setProperty(k, getPropertyValue(k, projectProperties, environment));
+        for (String k : keys) {
+            stage(k, getPropertyValue(k, properties, environment));
         }
     }
 
+    private void stage(String key, String value) {
+        staged.put(key, value);
+        if (PropertyValueEncryptionUtils.isEncryptedValue(value) || envelopeHeaders.containsKey(value)) {
+            encryptedKeys.add(key);
+        }
+    }
+
+    /**
+     * Decrypts the staged ENC(...) and GCM(...) values.
+     */
     private void decryptProperties() throws MojoExecutionException {
-        final Properties projectProperties = project.getProperties();
-        final PooledPBEStringEncryptor encryptor = buildEncryptor();
+        final long start = System.nanoTime();
+        final String password = getPassword();
+        final int envelopeValues = decryptEnvelopeProperties(password);
+        sizePool(encryptedKeys.size() - envelopeValues);
+        final StringEncryptor encryptor = stats.timed(buildDecryptor(password));
 
-        if (jasyptEncryptorPassword != null && !jasyptEncryptorPassword.isEmpty()) {
-            encryptor.setPassword(jasyptEncryptorPassword);
-        } else {
-            final String password = projectProperties.getProperty("jasypt.encryptor.password",
-                    System.getProperty("jasypt.encryptor.password"));
-            if (password != null && !password.isEmpty()) {
-                encryptor.setPassword(password);
-            } else {
-                throw new MojoExecutionException("Jasypt password is missing or empty");
+        final Map<String, String> encryptedProperties = new LinkedHashMap<>();
+        for (String k : encryptedKeys) {
+            String p = staged.get(k);
+
+            if (PropertyValueEncryptionUtils.isEncryptedValue(p)) {
+                encryptedProperties.put(k, p);
             }
         }
 
-        for (Enumeration<?> n = projectProperties.propertyNames(); n.hasMoreElements(); ) {
-            String k = (String) n.nextElement();
-            String p = (String) projectProperties.get(k);
+        final DecryptionCache cache = buildDecryptionCache(password);
+        final int parallelism = parallelDecryption ? getPoolSize() : 1;
+        final PropertyDecryptor decryptor = new PropertyDecryptor(encryptor, parallelism, cache);
+        if (persistentCache && usesKeyFile()) {
+            getLog().warn("The persistent cache does not apply to key files");
+        }
+        final PersistentDecryptionCache persistent = persistentCache && !cachedFiles.isEmpty() && !usesKeyFile()
+                ? new PersistentDecryptionCache(persistentCacheDirectory, describeEncryptor(), password,
+                getKeyObtentionIteration())
+                : null;
 
-            if (PropertyValueEncryptionUtils.isEncryptedValue(p)) {
-                final String value = PropertyValueEncryptionUtils.decrypt(p, encryptor);
-                projectProperties.setProperty(k, value);
-                if (logDecryptedValues) {
-                    getLog().info("decrypted property " + p + " to value " + value);
+        final Map<String, String> decryptedValues = new HashMap<>();
+        if (persistent != null) {
+            for (CachedFile cachedFile : cachedFiles) {
+                try {
+                    cachedFile.cachedValues = persistent.load(cachedFile.file, cachedFile.digest);
+                    decryptedValues.putAll(cachedFile.cachedValues);
+                } catch (IOException e) {
+                    getLog().warn("Cannot read cached values of " + cachedFile.file + ": " + e.getMessage());
                 }
             }
         }
+
+        final Set<String> valuesToDecrypt = new LinkedHashSet<>(encryptedProperties.values());
+        valuesToDecrypt.removeAll(decryptedValues.keySet());
+        final JfrEvents.DecryptBatch event = new JfrEvents.DecryptBatch();
+        event.begin();
+        try {
+            decryptedValues.putAll(decryptor.decrypt(valuesToDecrypt));
+            event.values = valuesToDecrypt.size();
+            event.parallelism = parallelism;
+            event.commit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while decrypting properties", e);
+        }
+
+        if (persistent != null) {
+            storeCachedFiles(persistent, decryptedValues);
+        }
+
+        for (Map.Entry<String, String> property : encryptedProperties.entrySet()) {
+            final String p = property.getValue();
+            final String value = decryptedValues.get(p);
+            staged.put(property.getKey(), value);
+            if (logDecryptedValues) {
+                getLog().info("decrypted property " + p + " to value " + value);
+            }
+        }
+        stats.decrypted(System.nanoTime() - start, envelopeValues + encryptedProperties.size(), parallelism);
+    }
+
+    private DecryptionCache buildDecryptionCache(String password) {
+        return cacheDecryptedValues && getSession() != null
+                ? DecryptionCache.forSession(getSession(), describeEncryptor() + ";password=" + password)
+                : null;
     }
 
-    private Properties loadSystemEnvironmentPropertiesWhenDefined() throws MojoExecutionException {
-        Properties projectProperties = project.getProperties();
+    /**
+     * Adds the staged properties to the project properties, replacing them with a view decrypting the ENC(...) and
+     * GCM(...) values on first access.
+     */
+    private void deferDecryption() throws MojoExecutionException {
+        final long start = System.nanoTime();
+        final String password = getPassword();
+        if (persistentCache) {
+            getLog().warn("The persistent cache does not apply to lazily decrypted properties");
+        }
 
-        boolean useEnvVariables = false;
-        for (Enumeration<?> n = projectProperties.propertyNames(); n.hasMoreElements(); ) {
-            String k = (String) n.nextElement();
-            String p = (String) projectProperties.get(k);
-            if (p.contains("${env.")) {
-                useEnvVariables = true;
-                break;
+        sizePool(encryptedKeys.size());
+        final PropertyDecryptor decryptor = new PropertyDecryptor(stats.timed(buildDecryptor(password)), 1,
+                buildDecryptionCache(password));
+        final Map<String, String> headers = new HashMap<>(envelopeHeaders);
+        final Map<String, PropertyEnvelope> envelopes = new ConcurrentHashMap<>();
+        final UnaryOperator<String> decryption = p -> {
+            final String header = headers.get(p);
+            final String value;
+            if (header == null) {
+                value = decryptor.decrypt(p);
+            } else {
+                try {
+                    value = envelopes.computeIfAbsent(header, h -> PropertyEnvelope.parse(h, password)).decrypt(p);
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalArgumentException(e.getMessage(), e);
+                }
+            }
+            if (logDecryptedValues) {
+                getLog().info("decrypted property " + p + " to value " + value);
             }
+            return value;
+        };
+
+        final Properties projectProperties = project.getProperties();
+        final LazyDecryptingProperties properties = projectProperties instanceof LazyDecryptingProperties
+                ? (LazyDecryptingProperties) projectProperties
+                : new LazyDecryptingProperties(projectProperties);
+        properties.putAll(staged);
+        for (String k : encryptedKeys) {
+            properties.defer(k, decryption);
         }
-        Properties environment = null;
-        if (useEnvVariables) {
+        project.getModel().setProperties(properties);
+        getLog().debug("Deferred the decryption of " + properties.getDeferredCount() + " properties");
+        stats.decrypted(System.nanoTime() - start, 0, 1);
+    }
+
+    private String getPassword() throws MojoExecutionException {
+        if (jasyptEncryptorPassword != null && !jasyptEncryptorPassword.isEmpty()) {
+            return jasyptEncryptorPassword;
+        }
+        String password = staged.get("jasypt.encryptor.password");
+        if (password == null) {
+            password = project.getProperties().getProperty("jasypt.encryptor.password",
+                    System.getProperty("jasypt.encryptor.password"));
+        }
+        if ((password == null || password.isEmpty()) && usesKeyFile()) {
+            return "";
+        }
+        if (password == null || password.isEmpty()) {
+            throw new MojoExecutionException("Jasypt password is missing or empty");
+        }
+        return password;
+    }
+
+    /**
+     * Decrypts the GCM(...) values of files with an envelope header, deriving the key only once per header.
+     *
+     * @return the number of decrypted properties
+     */
+    private int decryptEnvelopeProperties(String password) throws MojoExecutionException {
+        if (envelopeHeaders.isEmpty()) {
+            return 0;
+        }
+
+        int decrypted = 0;
+
+        final Map<String, PropertyEnvelope> envelopes = new HashMap<>();
+        for (String k : encryptedKeys) {
+            final String p = staged.get(k);
+            final String header = envelopeHeaders.get(p);
+            if (header == null) {
+                continue;
+            }
+
+            final String value;
+            try {
+                value = envelopes.computeIfAbsent(header, h -> PropertyEnvelope.parse(h, password)).decrypt(p);
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                throw new MojoExecutionException("Cannot decrypt property " + k + ": " + e.getMessage(), e);
+            }
+            staged.put(k, value);
+            decrypted++;
+            if (logDecryptedValues) {
+                getLog().info("decrypted property " + p + " to value " + value);
+            }
+        }
+        return decrypted;
+    }
+
+    private void storeCachedFiles(PersistentDecryptionCache persistent, Map<String, String> decryptedValues) {
+        for (CachedFile cachedFile : cachedFiles) {
+            final Map<String, String> values = new HashMap<>();
+            for (String encryptedValue : cachedFile.encryptedValues) {
+                if (decryptedValues.containsKey(encryptedValue)) {
+                    values.put(encryptedValue, decryptedValues.get(encryptedValue));
+                }
+            }
+            if (values.isEmpty() || values.equals(cachedFile.cachedValues)) {
+                continue;
+            }
             try {
-                environment = getSystemEnvVars();
+                persistent.store(cachedFile.file, cachedFile.digest, values);
             } catch (IOException e) {
-                throw new MojoExecutionException("Error getting system environment variables: ", e);
+                getLog().warn("Cannot cache decrypted values of " + cachedFile.file + ": " + e.getMessage());
             }
         }
-        return environment;
     }
 
-    private String getPropertyValue(String k, Properties p, Properties environment) throws MojoFailureException {
+    private String getPropertyValue(String k, UnaryOperator<String> p, UnaryOperator<String> environment)
+            throws MojoFailureException {
         try {
             return resolver.getPropertyValue(k, p, environment);
         } catch (IllegalArgumentException e) {
@@ -267,13 +996,13 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
     }
 
     /**
-     * Override-able for test purposes.
+     * Override-able for test purposes. Only called for environment variables actually referenced by a placeholder.
      *
-     * @return The shell environment variables, can be empty but never <code>null</code>.
-     * @throws IOException If the environment variables could not be queried from the shell.
+     * @param name The name of the environment variable.
+     * @return The value of the environment variable, or <code>null</code> if it is not defined.
      */
-    Properties getSystemEnvVars() throws IOException {
-        return CommandLineUtils.getSystemEnvVars();
+    String getSystemEnvVar(String name) {
+        return System.getenv(name);
     }
 
     /**
@@ -294,11 +1023,32 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
         this.project = project;
     }
 
+    private static class CachedFile {
+        private final File file;
+
+        private final String digest;
+
+        private final Set<String> encryptedValues;
+
+        private Map<String, String> cachedValues;
+
+        private CachedFile(File file, String digest, Set<String> encryptedValues) {
+            this.file = file;
+            this.digest = digest;
+            this.encryptedValues = encryptedValues;
+        }
+    }
+
     private static abstract class Resource {
         private InputStream stream;
 
         public abstract boolean canBeOpened();
 
+        /**
+         * @return <code>true</code> if the whole resource is encrypted, see {@link StreamingFileCipher}
+         */
+        public abstract boolean isEncrypted();
+
         protected abstract InputStream openStream()
                 throws IOException;
 
@@ -322,6 +1072,10 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
             return file.exists();
         }
 
+        public boolean isEncrypted() {
+            return file.getName().endsWith(ENCRYPTED_FILE_SUFFIX);
+        }
+
         protected InputStream openStream()
                 throws IOException {
             return new BufferedInputStream(new FileInputStream(file));
@@ -343,8 +1097,11 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
 
         private String classpathUrl;
 
-        public UrlResource(String url)
+        private final UrlCache cache;
+
+        public UrlResource(String url, UrlCache cache)
                 throws MojoExecutionException {
+            this.cache = cache;
             if (url.startsWith(CLASSPATH_PREFIX)) {
                 String resource = url.substring(CLASSPATH_PREFIX.length());
                 if (resource.startsWith(SLASH_PREFIX)) {
@@ -369,15 +1126,23 @@ public class ReadPropertiesMojo extends AbstractJasyptMojo {
                 return false;
             }
             try {
-                openStream();
+                // the probed stream is kept for reading the properties
+                getInputStream();
             } catch (IOException e) {
                 return false;
             }
             return true;
         }
 
+        public boolean isEncrypted() {
+            return url != null && url.getPath().endsWith(ENCRYPTED_FILE_SUFFIX);
+        }
+
         protected InputStream openStream()
                 throws IOException {
+            if (cache != null && UrlCache.isCacheable(url)) {
+                return new BufferedInputStream(cache.open(url));
+            }
             return new BufferedInputStream(url.openStream());
         }
 
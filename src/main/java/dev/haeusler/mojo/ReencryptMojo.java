@@ -0,0 +1,521 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.jasypt.encryption.pbe.config.SimpleStringPBEConfig;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decrypts every ENC(...) value of the given property files with the current configuration, as well as every GCM(...)
+ * value of files in the envelope format, encrypts it again with the new password and/or configuration, and rewrites
+ * each file in place. With <code>newEnvelope</code>, this also migrates files into the envelope format.
+ * <p>
+ * The files are processed in batches of about a thousand values, whose values are re-encrypted together across
+ * <code>poolSize</code> threads, so that memory use does not grow with the number of files. A file is only rewritten
+ * if all of its values could be re-encrypted; files that failed are reported at the end.
+ */
+@Mojo(name = "reencrypt", defaultPhase = LifecyclePhase.NONE, requiresProject = false)
+public class ReencryptMojo extends AbstractJasyptMojo {
+
+    /**
+     * Sets the password the values are currently encrypted with.
+     */
+    @Parameter(required = true, defaultValue = "${jasyptEncryptorPassword}")
+    private String jasyptEncryptorPassword;
+
+    /**
+     * Sets the password the values are encrypted with from now on.
+     */
+    @Parameter(required = true, defaultValue = "${newJasyptEncryptorPassword}")
+    private String newJasyptEncryptorPassword;
+
+    /**
+     * The property files to be re-encrypted.
+     */
+    @Parameter(property = "files")
+    private File[] files;
+
+    /**
+     * A directory tree containing property files to be re-encrypted.
+     */
+    @Parameter(property = "directory")
+    private File directory;
+
+    /**
+     * The patterns of the files within <code>directory</code> to be re-encrypted.
+     */
+    @Parameter(property = "includes", defaultValue = "**/*.properties")
+    private String[] includes = {"**/*.properties"};
+
+    /**
+     * The patterns of the files within <code>directory</code> to be skipped.
+     */
+    @Parameter(property = "excludes")
+    private String[] excludes = {};
+
+    /**
+     * Re-encrypts all values into GCM(...) values under a single key per file, see <code>jasypt.envelope</code>.
+     * Otherwise, all values are re-encrypted into ENC(...) values, also those of files in the envelope format.
+     */
+    @Parameter(property = "newEnvelope", defaultValue = "false")
+    private boolean newEnvelope;
+
+    /**
+     * Sets the algorithm to be used for the new encryption, defaults to the current algorithm.
+     */
+    @Parameter(property = "newAlgorithm")
+    private String newAlgorithm;
+
+    /**
+     * Sets the number of hashing iterations for the new encryption, defaults to the current number.
+     */
+    @Parameter(property = "newKeyObtentionIteration")
+    private Integer newKeyObtentionIteration;
+
+    /**
+     * Sets the security provider to be used for the new encryption, defaults to the current provider.
+     */
+    @Parameter(property = "newProviderClassName")
+    private String newProviderClassName;
+
+    /**
+     * Sets the salt generator to be used for the new encryption, defaults to the current salt generator.
+     */
+    @Parameter(property = "newSaltGeneratorClassName")
+    private String newSaltGeneratorClassName;
+
+    /**
+     * Sets the IV generator to be used for the new encryption, defaults to the current IV generator.
+     */
+    @Parameter(property = "newIvGeneratorClassName")
+    private String newIvGeneratorClassName;
+
+    /**
+     * Sets the form in which the new encryption will be encoded, defaults to the current form.
+     */
+    @Parameter(property = "newStringOutputType")
+    private String newStringOutputType;
+
+    /**
+     * The number of values after which the files read so far are re-encrypted and rewritten.
+     */
+    private int batchSize = 1000;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        checkPoolSize();
+        final StringEncryptor oldEncryptor = buildDecryptor(jasyptEncryptorPassword);
+        final StringEncryptor newEncryptor = newEnvelope ? null : buildNewEncryptor();
+        final PropertyEnvelope envelope = newEnvelope
+                ? PropertyEnvelope.create(newJasyptEncryptorPassword, newKeyObtentionIteration != null
+                ? newKeyObtentionIteration
+                : getKeyObtentionIteration())
+                : null;
+
+        // files are read and rewritten in batches, so that only the values of one batch are kept in memory
+        final Map<File, String> failures = new LinkedHashMap<>();
+        final Map<File, PropertiesFile> batch = new LinkedHashMap<>();
+        int batchValues = 0;
+        for (File file : collectFiles()) {
+            try {
+                final PropertiesFile propertiesFile = PropertiesFile.read(file);
+                final long values = propertiesFile.values().stream()
+                        .filter(value -> isEncryptedValue(propertiesFile, value))
+                        .count();
+                if (values > 0) {
+                    batch.put(file, propertiesFile);
+                    batchValues += values;
+                }
+            } catch (IOException e) {
+                failures.put(file, e.getMessage());
+            }
+            if (batchValues >= batchSize) {
+                reencrypt(batch, oldEncryptor, newEncryptor, envelope, failures);
+                batch.clear();
+                batchValues = 0;
+            }
+        }
+        reencrypt(batch, oldEncryptor, newEncryptor, envelope, failures);
+
+        if (!failures.isEmpty()) {
+            final StringBuilder message = new StringBuilder("Could not re-encrypt " + failures.size() + " files:");
+            for (Map.Entry<File, String> failure : failures.entrySet()) {
+                message.append("\n  ").append(failure.getKey()).append(": ").append(failure.getValue());
+            }
+            throw new MojoFailureException(message.toString());
+        }
+    }
+
+    /**
+     * Re-encrypts the values of a batch of files and rewrites each file whose values could all be re-encrypted.
+     *
+     * @param newEncryptor the encryptor for ENC(...) values, <code>null</code> if <code>envelope</code> is used
+     * @param envelope     the envelope for GCM(...) values, <code>null</code> if <code>newEncryptor</code> is used
+     * @param failures     the files that failed, to be completed
+     */
+    private void reencrypt(Map<File, PropertiesFile> propertiesFiles, StringEncryptor oldEncryptor,
+                           StringEncryptor newEncryptor, PropertyEnvelope envelope, Map<File, String> failures)
+            throws MojoExecutionException {
+        if (propertiesFiles.isEmpty()) {
+            return;
+        }
+
+        // the Jasypt values of all files of the batch are decrypted together, which keeps all threads busy; equal
+        // encrypted values are decrypted only once
+        final Map<String, String> decryptedValues = map(propertiesFiles.values().stream()
+                        .flatMap(propertiesFile -> propertiesFile.values().stream())
+                        .filter(PropertyValueEncryptionUtils::isEncryptedValue)
+                        .collect(Collectors.toList()),
+                value -> decrypt(value, oldEncryptor));
+
+        final Map<File, List<String>> fileValues = new LinkedHashMap<>();
+        for (Map.Entry<File, PropertiesFile> propertiesFile : propertiesFiles.entrySet()) {
+            try {
+                fileValues.put(propertiesFile.getKey(), decrypt(propertiesFile.getValue(), decryptedValues));
+            } catch (IllegalArgumentException e) {
+                failures.put(propertiesFile.getKey(), e.getMessage());
+            }
+        }
+
+        // each occurrence is encrypted on its own, so that equal values do not get equal encrypted values
+        final List<String> encryptedValues = envelope == null
+                ? mapEach(fileValues.values().stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList()),
+                value -> encrypt(value, newEncryptor))
+                : Collections.emptyList();
+
+        int offset = 0;
+        for (Map.Entry<File, List<String>> values : fileValues.entrySet()) {
+            final File file = values.getKey();
+            final PropertiesFile propertiesFile = propertiesFiles.get(file);
+            final int count = values.getValue().size();
+            try {
+                final List<String> replacements = new ArrayList<>(count);
+                if (envelope != null) {
+                    for (String value : values.getValue()) {
+                        replacements.add(envelope.encrypt(value));
+                    }
+                } else {
+                    replacements.addAll(encryptedValues.subList(offset, offset + count));
+                }
+                final long failed = replacements.stream().filter(Objects::isNull).count();
+                if (failed > 0) {
+                    failures.put(file, failed + " values could not be encrypted");
+                    continue;
+                }
+                // replaced before the header changes, which decides whether GCM(...) values are encrypted values
+                final Iterator<String> replacement = replacements.iterator();
+                final int replaced = propertiesFile.replaceValues(
+                        value -> isEncryptedValue(propertiesFile, value) ? replacement.next() : null);
+                if (envelope != null) {
+                    propertiesFile.setProperty(PropertyEnvelope.HEADER_KEY, envelope.header());
+                } else {
+                    propertiesFile.removeProperty(PropertyEnvelope.HEADER_KEY);
+                }
+                propertiesFile.write(file);
+                getLog().info("Re-encrypted " + replaced + " values in " + file);
+            } catch (IOException | GeneralSecurityException e) {
+                failures.put(file, e.getMessage());
+            } finally {
+                offset += count;
+            }
+        }
+    }
+
+    private static boolean isEncryptedValue(PropertiesFile propertiesFile, String value) {
+        return PropertyValueEncryptionUtils.isEncryptedValue(value)
+                || PropertyEnvelope.isEnvelopeValue(value)
+                && propertiesFile.getProperty(PropertyEnvelope.HEADER_KEY) != null;
+    }
+
+    private Map<String, String> map(List<String> values, UnaryOperator<String> function)
+            throws MojoExecutionException {
+        try {
+            return new ParallelMapper(getPoolSize()).map(values, function);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while re-encrypting values", e);
+        }
+    }
+
+    private List<String> mapEach(List<String> values, UnaryOperator<String> function) throws MojoExecutionException {
+        try {
+            return new ParallelMapper(getPoolSize()).mapEach(values, function);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("Interrupted while re-encrypting values", e);
+        }
+    }
+
+    /**
+     * @return the decrypted value, or <code>null</code> if the value could not be decrypted
+     */
+    private static String decrypt(String value, StringEncryptor oldEncryptor) {
+        try {
+            return PropertyValueEncryptionUtils.decrypt(value, oldEncryptor);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the encrypted value, or <code>null</code> if the value could not be encrypted
+     */
+    private static String encrypt(String value, StringEncryptor newEncryptor) {
+        try {
+            return PropertyValueEncryptionUtils.encrypt(value, newEncryptor);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the decrypted value of each encrypted value of the file, in order of appearance
+     * @throws IllegalArgumentException if a value could not be decrypted
+     */
+    private List<String> decrypt(PropertiesFile propertiesFile, Map<String, String> decryptedValues) {
+        final String header = propertiesFile.getProperty(PropertyEnvelope.HEADER_KEY);
+        final PropertyEnvelope envelope = header != null
+                ? PropertyEnvelope.parse(header, jasyptEncryptorPassword)
+                : null;
+
+        final List<String> values = new ArrayList<>();
+        int failed = 0;
+        for (String value : propertiesFile.values()) {
+            String decryptedValue = null;
+            if (PropertyValueEncryptionUtils.isEncryptedValue(value)) {
+                decryptedValue = decryptedValues.get(value);
+            } else if (envelope != null && PropertyEnvelope.isEnvelopeValue(value)) {
+                try {
+                    decryptedValue = envelope.decrypt(value);
+                } catch (GeneralSecurityException e) {
+                    // counted below
+                }
+            } else {
+                continue;
+            }
+
+            if (decryptedValue == null) {
+                failed++;
+            } else {
+                values.add(decryptedValue);
+            }
+        }
+        if (failed > 0) {
+            throw new IllegalArgumentException(failed + " values could not be decrypted");
+        }
+        return values;
+    }
+
+    private PooledPBEStringEncryptor buildNewEncryptor() {
+        final SimpleStringPBEConfig config = buildConfig();
+        if (newAlgorithm != null) {
+            config.setAlgorithm(newAlgorithm);
+        }
+        if (newKeyObtentionIteration != null) {
+            config.setKeyObtentionIterations(newKeyObtentionIteration);
+        }
+        if (newProviderClassName != null) {
+            config.setProviderClassName(newProviderClassName);
+        }
+        if (newSaltGeneratorClassName != null) {
+            config.setSaltGeneratorClassName(newSaltGeneratorClassName);
+        }
+        if (newIvGeneratorClassName != null) {
+            config.setIvGeneratorClassName(newIvGeneratorClassName);
+        }
+        if (newStringOutputType != null) {
+            config.setStringOutputType(newStringOutputType);
+        }
+        config.setPassword(newJasyptEncryptorPassword);
+
+        final PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
+        encryptor.setConfig(config);
+        return encryptor;
+    }
+
+    private Set<File> collectFiles() throws MojoExecutionException {
+        final Set<File> collected = new LinkedHashSet<>();
+        if (files != null) {
+            collected.addAll(Arrays.asList(files));
+        }
+        if (directory != null) {
+            final Path root = directory.toPath();
+            final List<PathMatcher> included = matchers(includes);
+            final List<PathMatcher> excluded = matchers(excludes);
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.filter(Files::isRegularFile)
+                        .filter(path -> matches(included, root.relativize(path))
+                                && !matches(excluded, root.relativize(path)))
+                        .sorted()
+                        .forEach(path -> collected.add(path.toFile()));
+            } catch (IOException e) {
+                throw new MojoExecutionException("Error scanning directory " + directory, e);
+            }
+        }
+        if (collected.isEmpty()) {
+            throw new MojoExecutionException("Set files or directory");
+        }
+        return collected;
+    }
+
+    private static List<PathMatcher> matchers(String[] patterns) {
+        final List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+            // like in Ant patterns, a leading **/ also matches files directly in the directory
+            if (pattern.startsWith("**/")) {
+                matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(3)));
+            }
+        }
+        return matchers;
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path path) {
+        return matchers.stream().anyMatch(matcher -> matcher.matches(path));
+    }
+
+    /**
+     * Sets the password the values are currently encrypted with.
+     *
+     * @param jasyptEncryptorPassword the current password.
+     */
+    public void setJasyptEncryptorPassword(String jasyptEncryptorPassword) {
+        this.jasyptEncryptorPassword = jasyptEncryptorPassword;
+    }
+
+    /**
+     * Sets the password the values are encrypted with from now on.
+     *
+     * @param newJasyptEncryptorPassword the new password.
+     */
+    public void setNewJasyptEncryptorPassword(String newJasyptEncryptorPassword) {
+        this.newJasyptEncryptorPassword = newJasyptEncryptorPassword;
+    }
+
+    /**
+     * The property files to be re-encrypted.
+     *
+     * @param files the property files.
+     */
+    public void setFiles(File[] files) {
+        this.files = files;
+    }
+
+    /**
+     * A directory tree containing property files to be re-encrypted.
+     *
+     * @param directory the directory.
+     */
+    public void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The patterns of the files within <code>directory</code> to be re-encrypted.
+     *
+     * @param includes the glob patterns, relative to the directory.
+     */
+    public void setIncludes(String[] includes) {
+        this.includes = includes;
+    }
+
+    /**
+     * The patterns of the files within <code>directory</code> to be skipped.
+     *
+     * @param excludes the glob patterns, relative to the directory.
+     */
+    public void setExcludes(String[] excludes) {
+        this.excludes = excludes;
+    }
+
+    /**
+     * Re-encrypts all values into GCM(...) values under a single key per file.
+     *
+     * @param newEnvelope <code>true</code> to use the envelope format.
+     */
+    public void setNewEnvelope(boolean newEnvelope) {
+        this.newEnvelope = newEnvelope;
+    }
+
+    /**
+     * Sets the algorithm to be used for the new encryption, defaults to the current algorithm.
+     *
+     * @param newAlgorithm the name of the algorithm to be used.
+     */
+    public void setNewAlgorithm(String newAlgorithm) {
+        this.newAlgorithm = newAlgorithm;
+    }
+
+    /**
+     * Sets the number of hashing iterations for the new encryption, defaults to the current number.
+     *
+     * @param newKeyObtentionIteration the number of iterations.
+     */
+    public void setNewKeyObtentionIteration(Integer newKeyObtentionIteration) {
+        this.newKeyObtentionIteration = newKeyObtentionIteration;
+    }
+
+    /**
+     * Sets the security provider to be used for the new encryption, defaults to the current provider.
+     *
+     * @param newProviderClassName the name of the security provider class.
+     */
+    public void setNewProviderClassName(String newProviderClassName) {
+        this.newProviderClassName = newProviderClassName;
+    }
+
+    /**
+     * Sets the salt generator to be used for the new encryption, defaults to the current salt generator.
+     *
+     * @param newSaltGeneratorClassName the name of the salt generator class.
+     */
+    public void setNewSaltGeneratorClassName(String newSaltGeneratorClassName) {
+        this.newSaltGeneratorClassName = newSaltGeneratorClassName;
+    }
+
+    /**
+     * Sets the IV generator to be used for the new encryption, defaults to the current IV generator.
+     *
+     * @param newIvGeneratorClassName the name of the IV generator class.
+     */
+    public void setNewIvGeneratorClassName(String newIvGeneratorClassName) {
+        this.newIvGeneratorClassName = newIvGeneratorClassName;
+    }
+
+    /**
+     * Default scope for test access.
+     *
+     * @param batchSize The number of values after which the files read so far are re-encrypted.
+     */
+    void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the form in which the new encryption will be encoded, defaults to the current form.
+     *
+     * @param newStringOutputType the string output type.
+     */
+    public void setNewStringOutputType(String newStringOutputType) {
+        this.newStringOutputType = newStringOutputType;
+    }
+}
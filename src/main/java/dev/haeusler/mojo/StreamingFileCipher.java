@@ -0,0 +1,210 @@
+package dev.haeusler.mojo;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+/**
+ * Encrypts whole files with AES-GCM in chunks, so that they can be decrypted as a stream without holding the plaintext
+ * in memory. The key is derived from the password once per file.
+ * <p>
+ * A file starts with a header of the format marker, the number of iterations for deriving the key, the salt and a
+ * random nonce prefix. It is followed by chunks of at most 64 KiB plaintext, each encrypted with the nonce prefix plus
+ * the chunk number as nonce and the header plus a last-chunk flag as additional authenticated data. Chunks can thus
+ * neither be reordered nor dropped, and the file cannot be truncated at a chunk boundary.
+ */
+class StreamingFileCipher {
+
+    private static final byte[] MAGIC = "JASYPTF1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int SALT_SIZE_BYTES = 16;
+
+    private static final int NONCE_PREFIX_SIZE_BYTES = 8;
+
+    private static final int HEADER_SIZE_BYTES = MAGIC.length + Integer.BYTES + SALT_SIZE_BYTES
+            + NONCE_PREFIX_SIZE_BYTES;
+
+    private static final int CHUNK_SIZE_BYTES = 64 * 1024;
+
+    private static final int TAG_SIZE_BYTES = 16;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    /**
+     * The largest number of iterations accepted from a file header, far above any sensible configuration but low
+     * enough that a corrupted or crafted header cannot stall the build.
+     */
+    private static final int MAX_ITERATIONS = 10_000_000;
+
+    private StreamingFileCipher() {
+    }
+
+    /**
+     * @param plaintext  the content to be encrypted
+     * @param ciphertext receives the encrypted content
+     * @param password   the password
+     * @param iterations the number of hashing iterations applied to obtain the key
+     * @throws IOException if the content could not be read, encrypted or written
+     */
+    static void encrypt(InputStream plaintext, OutputStream ciphertext, String password, int iterations)
+            throws IOException {
+        final byte[] salt = AesGcmCipher.randomBytes(SALT_SIZE_BYTES);
+        final byte[] header = ByteBuffer.allocate(HEADER_SIZE_BYTES)
+                .put(MAGIC)
+                .putInt(iterations)
+                .put(salt)
+                .put(AesGcmCipher.randomBytes(NONCE_PREFIX_SIZE_BYTES))
+                .array();
+        ciphertext.write(header);
+
+        final Chunks chunks = new Chunks(header, derive(password, salt, iterations));
+        final byte[] chunk = new byte[CHUNK_SIZE_BYTES];
+        int length;
+        do {
+            length = readFully(plaintext, chunk);
+            ciphertext.write(chunks.encrypt(chunk, length, length < CHUNK_SIZE_BYTES));
+        } while (length == CHUNK_SIZE_BYTES);
+    }
+
+    /**
+     * @param ciphertext the encrypted content
+     * @param password   the password
+     * @return the decrypted content, decrypted chunk by chunk while it is read
+     * @throws IOException if the header could not be read, is not supported or holds an invalid number of iterations
+     */
+    static InputStream decrypt(InputStream ciphertext, String password) throws IOException {
+        final byte[] header = new byte[HEADER_SIZE_BYTES];
+        if (readFully(ciphertext, header) < HEADER_SIZE_BYTES
+                || !Arrays.equals(Arrays.copyOf(header, MAGIC.length), MAGIC)) {
+            throw new IOException("Not an encrypted properties file");
+        }
+        final ByteBuffer fields = ByteBuffer.wrap(header, MAGIC.length, HEADER_SIZE_BYTES - MAGIC.length);
+        final int iterations = fields.getInt();
+        if (iterations < 1 || iterations > MAX_ITERATIONS) {
+            throw new IOException("Invalid number of iterations " + iterations + ", expected 1 to " + MAX_ITERATIONS);
+        }
+        final byte[] salt = new byte[SALT_SIZE_BYTES];
+        fields.get(salt);
+
+        return new DecryptingInputStream(ciphertext, new Chunks(header, derive(password, salt, iterations)));
+    }
+
+    private static SecretKey derive(String password, byte[] salt, int iterations) throws IOException {
+        try {
+            return AesGcmCipher.deriveKey(password, salt, iterations);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IOException("Cannot derive key", e);
+        }
+    }
+
+    private static int readFully(InputStream stream, byte[] buffer) throws IOException {
+        int length = 0;
+        while (length < buffer.length) {
+            final int read = stream.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    /**
+     * Encrypts and decrypts the chunks of one file in order.
+     */
+    private static class Chunks {
+        private final byte[] header;
+
+        private final SecretKey key;
+
+        private int index;
+
+        private Chunks(byte[] header, SecretKey key) {
+            this.header = header;
+            this.key = key;
+        }
+
+        private byte[] encrypt(byte[] chunk, int length, boolean last) throws IOException {
+            try {
+                return cipher(Cipher.ENCRYPT_MODE, last).doFinal(chunk, 0, length);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Cannot encrypt chunk " + index, e);
+            }
+        }
+
+        private byte[] decrypt(byte[] chunk, int length, boolean last) throws IOException {
+            try {
+                return cipher(Cipher.DECRYPT_MODE, last).doFinal(chunk, 0, length);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Cannot decrypt chunk " + index + ", wrong password or corrupted file", e);
+            }
+        }
+
+        private Cipher cipher(int mode, boolean last) throws GeneralSecurityException {
+            final byte[] nonce = ByteBuffer.allocate(NONCE_PREFIX_SIZE_BYTES + Integer.BYTES)
+                    .put(header, HEADER_SIZE_BYTES - NONCE_PREFIX_SIZE_BYTES, NONCE_PREFIX_SIZE_BYTES)
+                    .putInt(index++)
+                    .array();
+            final Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, key, new GCMParameterSpec(TAG_SIZE_BYTES * 8, nonce));
+            cipher.updateAAD(header);
+            cipher.updateAAD(new byte[]{(byte) (last ? 1 : 0)});
+            return cipher;
+        }
+    }
+
+    private static class DecryptingInputStream extends InputStream {
+        private final InputStream ciphertext;
+
+        private final Chunks chunks;
+
+        private final byte[] chunk = new byte[CHUNK_SIZE_BYTES + TAG_SIZE_BYTES];
+
+        private byte[] plaintext = new byte[0];
+
+        private int position;
+
+        private boolean last;
+
+        private DecryptingInputStream(InputStream ciphertext, Chunks chunks) {
+            this.ciphertext = ciphertext;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (position == plaintext.length) {
+                if (last) {
+                    return -1;
+                }
+                final int read = readFully(ciphertext, chunk);
+                if (read < TAG_SIZE_BYTES) {
+                    throw new EOFException("Encrypted properties file is truncated");
+                }
+                last = read < chunk.length;
+                plaintext = chunks.decrypt(chunk, read, last);
+                position = 0;
+            }
+            final int copied = Math.min(length, plaintext.length - position);
+            System.arraycopy(plaintext, position, buffer, offset, copied);
+            position += copied;
+            return copied;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ciphertext.close();
+        }
+    }
+}
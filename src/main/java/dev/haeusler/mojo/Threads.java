@@ -0,0 +1,23 @@
+package dev.haeusler.mojo;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the threads for reading resources. On Java 21 and later, the variant in <code>META-INF/versions/21</code>
+ * of the multi-release JAR replaces this class and reads resources on virtual threads. Resources are only read
+ * concurrently if {@link ReadPropertiesMojo#setParallelUrlLoading(boolean) parallelUrlLoading} is enabled.
+ */
+final class Threads {
+
+    private Threads() {
+    }
+
+    /**
+     * @param tasks the number of blocking I/O tasks to be submitted
+     * @return an executor running each task on its own platform thread
+     */
+    static ExecutorService newIoExecutor(int tasks) {
+        return Executors.newFixedThreadPool(Math.max(1, tasks));
+    }
+}
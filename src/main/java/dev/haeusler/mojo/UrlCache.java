@@ -0,0 +1,117 @@
+package dev.haeusler.mojo;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Keeps the content of http(s) URLs on disk together with their <code>ETag</code> and <code>Last-Modified</code>
+ * headers. Later requests are sent as conditional requests, and the cached content is used when the server answers
+ * with <code>304 Not Modified</code>. In offline mode, the cached content is used without any request.
+ */
+class UrlCache {
+
+    private static final String ETAG_KEY = "etag";
+
+    private static final String LAST_MODIFIED_KEY = "last-modified";
+
+    private final File directory;
+
+    private final boolean offline;
+
+    /**
+     * @param directory the directory holding the cached content
+     * @param offline   if the cached content should be used without contacting the server
+     */
+    UrlCache(File directory, boolean offline) {
+        this.directory = directory;
+        this.offline = offline;
+    }
+
+    /**
+     * @param url the URL
+     * @return <code>true</code> if the URL can be cached
+     */
+    static boolean isCacheable(URL url) {
+        return "http".equalsIgnoreCase(url.getProtocol()) || "https".equalsIgnoreCase(url.getProtocol());
+    }
+
+    /**
+     * @param url an http(s) URL
+     * @return the current content of the URL
+     * @throws IOException if the content could neither be fetched nor taken from the cache
+     */
+    public InputStream open(URL url) throws IOException {
+        final String name = Digests.sha256Hex(url.toExternalForm());
+        final File body = new File(directory, name + ".body");
+        final File headers = new File(directory, name + ".properties");
+
+        if (offline) {
+            if (!body.isFile()) {
+                throw new FileNotFoundException("Offline and not cached: " + url);
+            }
+            return new FileInputStream(body);
+        }
+
+        final Properties validators = new Properties();
+        if (body.isFile() && headers.isFile()) {
+            try (InputStream stream = new FileInputStream(headers)) {
+                validators.load(stream);
+            }
+        }
+
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            if (validators.getProperty(ETAG_KEY) != null) {
+                connection.setRequestProperty("If-None-Match", validators.getProperty(ETAG_KEY));
+            }
+            if (validators.getProperty(LAST_MODIFIED_KEY) != null) {
+                connection.setRequestProperty("If-Modified-Since", validators.getProperty(LAST_MODIFIED_KEY));
+            }
+
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED && body.isFile()) {
+                return new FileInputStream(body);
+            }
+
+            try (InputStream stream = connection.getInputStream()) {
+                store(stream, connection, body, headers);
+            }
+            return new FileInputStream(body);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void store(InputStream stream, URLConnection connection, File body, File headers) throws IOException {
+        Files.createDirectories(directory.toPath());
+
+        final Properties validators = new Properties();
+        if (connection.getHeaderField("ETag") != null) {
+            validators.setProperty(ETAG_KEY, connection.getHeaderField("ETag"));
+        }
+        if (connection.getHeaderField("Last-Modified") != null) {
+            validators.setProperty(LAST_MODIFIED_KEY, connection.getHeaderField("Last-Modified"));
+        }
+
+        final Path temporaryBody = Files.createTempFile(directory.toPath(), body.getName(), ".tmp");
+        final Path temporaryHeaders = Files.createTempFile(directory.toPath(), headers.getName(), ".tmp");
+        try {
+            Files.copy(stream, temporaryBody, StandardCopyOption.REPLACE_EXISTING);
+            try (OutputStream out = Files.newOutputStream(temporaryHeaders)) {
+                validators.store(out, null);
+            }
+            Files.move(temporaryBody, body.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            Files.move(temporaryHeaders, headers.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryBody);
+            Files.deleteIfExists(temporaryHeaders);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package dev.haeusler.mojo;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the threads for reading resources, on Java 21 and later as virtual threads. Decryption is CPU-bound and
+ * keeps running on the bounded pool of platform threads of {@link ParallelMapper}.
+ */
+final class Threads {
+
+    private Threads() {
+    }
+
+    /**
+     * @param tasks the number of blocking I/O tasks to be submitted
+     * @return an executor running each task on its own virtual thread
+     */
+    static ExecutorService newIoExecutor(int tasks) {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -1,9 +1,12 @@
 package dev.haeusler.mojo;
 
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.security.GeneralSecurityException;
+
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -31,7 +34,7 @@ class DecryptPropertyMojoTest {
     }
 
     @Test
-    public void testEncrypt() {
+    public void testEncrypt() throws MojoExecutionException {
         final String expectedDecryptedValue = "value-to-encrypt";
         final String valueToDecrypt = "ENC(jMI5t0UiN2UJ3do70j/+GkHHUmAuOzgEHUwXvvWSXbY=)";
 
@@ -40,4 +43,15 @@ class DecryptPropertyMojoTest {
 
         verify(log).info(contains(expectedDecryptedValue));
     }
+
+    @Test
+    public void testDecryptEnvelopeValue() throws GeneralSecurityException, MojoExecutionException {
+        final PropertyEnvelope envelope = PropertyEnvelope.create(jasyptEncryptorPassword, 1000);
+
+        decryptPropertyMojo.setEncryptedValue(envelope.encrypt("envelope-value"));
+        decryptPropertyMojo.setEnvelopeHeader(envelope.header());
+        decryptPropertyMojo.execute();
+
+        verify(log).info(contains("envelope-value"));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package dev.haeusler.mojo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecryptionCacheTest {
+
+    private final ConcurrentMap<String, CompletableFuture<String>> values = new ConcurrentHashMap<>();
+
+    @Test
+    public void valueIsDecryptedOnce() {
+        AtomicInteger decryptions = new AtomicInteger();
+        DecryptionCache module1 = new DecryptionCache(values, "config;password=secret");
+        DecryptionCache module2 = new DecryptionCache(values, "config;password=secret");
+
+        assertEquals("value", module1.decrypt("ENC(x)", v -> {
+            decryptions.incrementAndGet();
+            return "value";
+        }));
+        assertEquals("value", module2.decrypt("ENC(x)", v -> fail()));
+        assertEquals(1, decryptions.get());
+    }
+
+    @Test
+    public void valueIsNotSharedWithOtherConfigurations() {
+        DecryptionCache cache1 = new DecryptionCache(values, "config;password=secret");
+        DecryptionCache cache2 = new DecryptionCache(values, "config;password=other");
+
+        assertEquals("value1", cache1.decrypt("ENC(x)", v -> "value1"));
+        assertEquals("value2", cache2.decrypt("ENC(x)", v -> "value2"));
+    }
+
+    @Test
+    public void failedDecryptionIsNotCached() {
+        DecryptionCache cache = new DecryptionCache(values, "config;password=secret");
+
+        assertThrows(IllegalStateException.class, () -> cache.decrypt("ENC(x)", v -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals("value", cache.decrypt("ENC(x)", v -> "value"));
+    }
+
+    @Test
+    public void passwordIsNotStoredInClearText() {
+        new DecryptionCache(values, "config;password=secret").decrypt("ENC(x)", v -> "value");
+
+        assertTrue(values.keySet().stream().noneMatch(key -> key.contains("secret")));
+    }
+}
@@ -0,0 +1,170 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class EncryptFileMojoTest {
+
+    private static final String jasyptEncryptorPassword = "super_secret_passw0rd";
+
+    private static final String encryptedValue = "ENC(jMI5t0UiN2UJ3do70j/+GkHHUmAuOzgEHUwXvvWSXbY=)";
+
+    @TempDir
+    File directory;
+
+    private EncryptFileMojo mojo(File... files) {
+        EncryptFileMojo mojo = new EncryptFileMojo();
+
+        // make sure we always have the same encrypted value
+        mojo.setSaltGeneratorClassName("org.jasypt.salt.ZeroSaltGenerator");
+        mojo.setIvGeneratorClassName("dev.haeusler.mojo.FixedStringIvGenerator");
+
+        mojo.setJasyptEncryptorPassword(jasyptEncryptorPassword);
+        mojo.setFiles(files);
+        mojo.setLog(mock(Log.class));
+        return mojo;
+    }
+
+    @Test
+    void encryptsMarkedValuesAndPreservesTheRest() throws IOException, MojoExecutionException {
+        File file = new File(directory, "config.properties");
+        Files.writeString(file.toPath(), "# database\r\n"
+                + "db.user = admin\r\n"
+                + "db.password = DEC(value-to-encrypt)\r\n"
+                + "\r\n"
+                + "! other\r\n"
+                + "api.key:DEC(value-to-encrypt)\r\n"
+                + "multi.line = not \\\r\n"
+                + "    encrypted\r\n"
+                + "already = " + encryptedValue + "\r\n");
+
+        mojo(file).execute();
+
+        assertEquals("# database\r\n"
+                + "db.user = admin\r\n"
+                + "db.password = " + encryptedValue + "\r\n"
+                + "\r\n"
+                + "! other\r\n"
+                + "api.key:" + encryptedValue + "\r\n"
+                + "multi.line = not \\\r\n"
+                + "    encrypted\r\n"
+                + "already = " + encryptedValue + "\r\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void unescapesValuesBeforeEncryption() throws IOException, MojoExecutionException {
+        File file = new File(directory, "config.properties");
+        Files.writeString(file.toPath(), "escaped\\ key=DEC(value\\-to\\u002dencrypt)\nother=DEC(other)\n");
+
+        EncryptFileMojo mojo = mojo(file);
+        mojo.setPoolSize(4);
+        mojo.execute();
+
+        Properties properties = new Properties();
+        try (InputStream stream = new FileInputStream(file)) {
+            properties.load(stream);
+        }
+        assertEquals(encryptedValue, properties.getProperty("escaped key"));
+        assertEquals("ENC(", properties.getProperty("other").substring(0, 4));
+    }
+
+    @Test
+    void equalValuesAreEncryptedOnTheirOwn() throws IOException, MojoExecutionException {
+        File file = new File(directory, "config.properties");
+        Files.writeString(file.toPath(), "first=DEC(same)\nsecond=DEC(same)\n");
+
+        EncryptFileMojo mojo = new EncryptFileMojo();
+        mojo.setJasyptEncryptorPassword(jasyptEncryptorPassword);
+        mojo.setKeyObtentionIteration(1000);
+        mojo.setPoolSize(2);
+        mojo.setFiles(new File[]{file});
+        mojo.setLog(mock(Log.class));
+        mojo.execute();
+
+        Properties properties = new Properties();
+        try (InputStream stream = new FileInputStream(file)) {
+            properties.load(stream);
+        }
+        assertTrue(properties.getProperty("first").startsWith("ENC("), properties.getProperty("first"));
+        assertNotEquals(properties.getProperty("first"), properties.getProperty("second"));
+    }
+
+    @Test
+    void continuedValuesToBeEncryptedFail() throws IOException {
+        File file = new File(directory, "config.properties");
+        String content = "# secrets\nsecret = DEC(not \\\n    encrypted)\nother=DEC(value)\n";
+        Files.writeString(file.toPath(), content);
+
+        MojoExecutionException e = assertThrows(MojoExecutionException.class, () -> mojo(file).execute());
+
+        assertTrue(e.getMessage().contains("line 2 of " + file), e.getMessage());
+        assertEquals(content, Files.readString(file.toPath()));
+    }
+
+    @Test
+    void malformedUnicodeEscapesNameFileAndLine() throws IOException {
+        File file = new File(directory, "config.properties");
+        for (String malformed : new String[]{"DEC(\\u00zz)", "DEC(value)\\u00"}) {
+            Files.writeString(file.toPath(), "# secrets\nsecret=" + malformed + "\n");
+
+            MojoExecutionException e = assertThrows(MojoExecutionException.class, () -> mojo(file).execute());
+
+            assertTrue(e.getMessage().contains(file.toString()), e.getMessage());
+            assertTrue(e.getCause().getMessage().contains("Malformed \\uxxxx encoding in line 2 of " + file),
+                    e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    void encryptsIntoEnvelope() throws IOException, GeneralSecurityException, MojoExecutionException {
+        File file = new File(directory, "config.properties");
+        Files.writeString(file.toPath(), "# secrets\nfirst=DEC(one)\nsecond=DEC(two)\n");
+
+        EncryptFileMojo mojo = mojo(file);
+        mojo.setEnvelope(true);
+        mojo.setKeyObtentionIteration(1000);
+        mojo.execute();
+
+        Files.writeString(file.toPath(), Files.readString(file.toPath()) + "third=DEC(three)\n");
+        mojo.execute();
+
+        Properties properties = new Properties();
+        try (InputStream stream = new FileInputStream(file)) {
+            properties.load(stream);
+        }
+        assertTrue(Files.readString(file.toPath()).startsWith("# secrets\n" + PropertyEnvelope.HEADER_KEY + "="));
+        PropertyEnvelope envelope = PropertyEnvelope.parse(
+                properties.getProperty(PropertyEnvelope.HEADER_KEY), jasyptEncryptorPassword);
+        assertEquals("one", envelope.decrypt(properties.getProperty("first")));
+        assertEquals("two", envelope.decrypt(properties.getProperty("second")));
+        assertEquals("three", envelope.decrypt(properties.getProperty("third")));
+    }
+
+    @Test
+    void refusesToAddToEnvelopeOfOtherPassword() throws IOException, GeneralSecurityException {
+        PropertyEnvelope envelope = PropertyEnvelope.create("other", 1000);
+        File file = new File(directory, "config.properties");
+        String content = PropertyEnvelope.HEADER_KEY + "=" + envelope.header() + "\n"
+                + "first=" + envelope.encrypt("one") + "\nsecond=DEC(two)\n";
+        Files.writeString(file.toPath(), content);
+
+        EncryptFileMojo mojo = mojo(file);
+        mojo.setEnvelope(true);
+
+        assertThrows(MojoExecutionException.class, mojo::execute);
+        assertEquals(content, Files.readString(file.toPath()));
+    }
+}
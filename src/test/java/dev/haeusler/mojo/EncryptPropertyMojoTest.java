@@ -1,5 +1,6 @@
 package dev.haeusler.mojo;
 
+import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.logging.Log;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -34,7 +35,7 @@ class EncryptPropertyMojoTest {
     }
 
     @Test
-    public void testEncrypt() {
+    public void testEncrypt() throws MojoExecutionException {
         final String expectedEncryptedValue = "ENC(jMI5t0UiN2UJ3do70j/+GkHHUmAuOzgEHUwXvvWSXbY=)";
         final String valueToEncrypt = "value-to-encrypt";
 
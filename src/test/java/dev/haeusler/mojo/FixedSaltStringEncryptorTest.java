@@ -0,0 +1,102 @@
+package dev.haeusler.mojo;
+
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.jasypt.encryption.pbe.config.SimpleStringPBEConfig;
+import org.jasypt.exceptions.EncryptionOperationNotPossibleException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FixedSaltStringEncryptorTest {
+
+    private static final String password = "super_secret_passw0rd";
+
+    private static SimpleStringPBEConfig config(String algorithm, String saltGenerator, String ivGenerator,
+                                                String stringOutputType) {
+        SimpleStringPBEConfig config = new SimpleStringPBEConfig();
+        config.setAlgorithm(algorithm);
+        config.setPoolSize(1);
+        config.setKeyObtentionIterations(1000);
+        config.setSaltGeneratorClassName(saltGenerator);
+        config.setIvGeneratorClassName(ivGenerator);
+        config.setStringOutputType(stringOutputType);
+        return config;
+    }
+
+    private static PooledPBEStringEncryptor jasypt(SimpleStringPBEConfig config) {
+        PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
+        encryptor.setConfig(config);
+        encryptor.setPassword(password);
+        return encryptor;
+    }
+
+    private static void assertDecryptsLikeJasyptWithoutFallback(String algorithm, String ivGenerator,
+                                                                String stringOutputType) {
+        SimpleStringPBEConfig config = config(algorithm, "org.jasypt.salt.ZeroSaltGenerator", ivGenerator,
+                stringOutputType);
+        String encrypted = jasypt(config).encrypt("välue-to-encrypt");
+
+        StringEncryptor fallback = mock(StringEncryptor.class);
+        when(fallback.decrypt(encrypted)).thenThrow(new AssertionError("fallback used"));
+        StringEncryptor encryptor = FixedSaltStringEncryptor.create(config, password, fallback);
+
+        assertInstanceOf(FixedSaltStringEncryptor.class, encryptor);
+        assertEquals("välue-to-encrypt", encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void decryptsLikeJasyptWithRandomIv() {
+        assertDecryptsLikeJasyptWithoutFallback("PBEWithHMACSHA512AndAES_256", "org.jasypt.iv.RandomIvGenerator",
+                "base64");
+    }
+
+    @Test
+    void decryptsLikeJasyptWithFixedIv() {
+        assertDecryptsLikeJasyptWithoutFallback("PBEWithHMACSHA512AndAES_256",
+                "dev.haeusler.mojo.FixedStringIvGenerator", "base64");
+    }
+
+    @Test
+    void decryptsLikeJasyptWithOtherAlgorithms() {
+        assertDecryptsLikeJasyptWithoutFallback("PBEWithHMACSHA256AndAES_128", "org.jasypt.iv.RandomIvGenerator",
+                "hexadecimal");
+        assertDecryptsLikeJasyptWithoutFallback("PBEWithHMACSHA1AndAES_256", "org.jasypt.iv.RandomIvGenerator",
+                "base64");
+    }
+
+    @Test
+    void usesJasyptForRandomSalt() {
+        SimpleStringPBEConfig config = config("PBEWithHMACSHA512AndAES_256", "org.jasypt.salt.RandomSaltGenerator",
+                "org.jasypt.iv.RandomIvGenerator", "base64");
+        PooledPBEStringEncryptor fallback = jasypt(config);
+
+        assertSame(fallback, FixedSaltStringEncryptor.create(config, password, fallback));
+    }
+
+    @Test
+    void usesJasyptWithoutIv() {
+        SimpleStringPBEConfig config = config("PBEWithMD5AndDES", "org.jasypt.salt.ZeroSaltGenerator",
+                "org.jasypt.iv.NoIvGenerator", "base64");
+        PooledPBEStringEncryptor fallback = jasypt(config);
+
+        assertSame(fallback, FixedSaltStringEncryptor.create(config, password, fallback));
+    }
+
+    @Test
+    void reportsUndecryptableValuesLikeJasypt() {
+        SimpleStringPBEConfig config = config("PBEWithHMACSHA512AndAES_256", "org.jasypt.salt.ZeroSaltGenerator",
+                "org.jasypt.iv.RandomIvGenerator", "base64");
+        String encrypted = jasypt(config).encrypt("value-to-encrypt");
+
+        PooledPBEStringEncryptor otherPassword = new PooledPBEStringEncryptor();
+        otherPassword.setConfig(config);
+        otherPassword.setPassword("other");
+        StringEncryptor encryptor = FixedSaltStringEncryptor.create(config, "other", otherPassword);
+
+        assertThrows(EncryptionOperationNotPossibleException.class, () -> encryptor.decrypt(encrypted));
+        assertThrows(EncryptionOperationNotPossibleException.class, () -> encryptor.decrypt("not base64!"));
+    }
+}
@@ -0,0 +1,60 @@
+package dev.haeusler.mojo;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void resolvingEmitsEvents() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${p2}-${p2}");
+        properties.setProperty("p2", "${p3}");
+        properties.setProperty("p3", "value");
+
+        Path dump = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrEvents.ResolveKey.class).withoutThreshold();
+            recording.enable(JfrEvents.ResolveAll.class).withoutThreshold();
+            recording.start();
+
+            PropertyResolver resolver = new PropertyResolver();
+            resolver.getPropertyValue("p1", properties, new Properties());
+            resolver.getPropertyValues(properties, new Properties());
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        List<RecordedEvent> resolveKey = events.stream()
+                .filter(event -> event.getEventType().getName().equals("dev.haeusler.jasypt.ResolveKey"))
+                .collect(Collectors.toList());
+        List<RecordedEvent> resolveAll = events.stream()
+                .filter(event -> event.getEventType().getName().equals("dev.haeusler.jasypt.ResolveAll"))
+                .collect(Collectors.toList());
+
+        assertEquals(1, resolveKey.size());
+        assertEquals("p1", resolveKey.get(0).getString("key"));
+        assertEquals(3, resolveKey.get(0).getInt("expandedPlaceholders"));
+        assertEquals(2, resolveKey.get(0).getInt("depth"));
+
+        assertEquals(1, resolveAll.size());
+        assertEquals(3, resolveAll.get(0).getInt("keys"));
+        assertEquals(2, resolveAll.get(0).getInt("depth"));
+    }
+}
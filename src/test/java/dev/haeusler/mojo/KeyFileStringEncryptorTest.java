@@ -0,0 +1,117 @@
+package dev.haeusler.mojo;
+
+import org.jasypt.exceptions.EncryptionInitializationException;
+import org.jasypt.exceptions.EncryptionOperationNotPossibleException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyFileStringEncryptorTest {
+
+    private static final byte[] key = new byte[32];
+
+    static {
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) i;
+        }
+    }
+
+    @TempDir
+    File directory;
+
+    @Test
+    void roundTrip() {
+        KeyFileStringEncryptor encryptor = new KeyFileStringEncryptor(new SecretKeySpec(key, "AES"), "base64");
+
+        String encrypted = encryptor.encrypt("välue-to-encrypt");
+
+        assertNotEquals(encrypted, encryptor.encrypt("välue-to-encrypt"));
+        assertEquals("välue-to-encrypt", encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void roundTripHexadecimal() {
+        KeyFileStringEncryptor encryptor = new KeyFileStringEncryptor(new SecretKeySpec(key, "AES"), "hexadecimal");
+
+        String encrypted = encryptor.encrypt("value-to-encrypt");
+
+        assertTrue(encrypted.matches("[0-9A-Fa-f]+"));
+        assertEquals("value-to-encrypt", encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void rawAndBase64KeyFilesHoldTheSameKey() throws IOException {
+        File raw = new File(directory, "raw.key");
+        Files.write(raw.toPath(), key);
+        File base64 = new File(directory, "base64.key");
+        Files.writeString(base64.toPath(), Base64.getEncoder().encodeToString(key) + "\n");
+
+        String encrypted = new KeyFileStringEncryptor(KeyFileStringEncryptor.readKeyFile(raw), "base64")
+                .encrypt("value-to-encrypt");
+
+        assertEquals("value-to-encrypt",
+                new KeyFileStringEncryptor(KeyFileStringEncryptor.readKeyFile(base64), "base64").decrypt(encrypted));
+    }
+
+    @Test
+    void base64KeyFilesWithoutNewlineAreNotTakenAsRawKeys() throws IOException {
+        for (int size : new int[]{16, 24, 32}) {
+            byte[] expected = Arrays.copyOf(key, size);
+            File file = new File(directory, size + ".key");
+            Files.writeString(file.toPath(), Base64.getEncoder().encodeToString(expected));
+
+            assertArrayEquals(expected, KeyFileStringEncryptor.readKeyFile(file).getEncoded());
+        }
+    }
+
+    @Test
+    void keyFileWithoutKeyFails() throws IOException {
+        File file = new File(directory, "invalid.key");
+        Files.writeString(file.toPath(), "not a key");
+
+        assertThrows(EncryptionInitializationException.class, () -> KeyFileStringEncryptor.readKeyFile(file));
+    }
+
+    @Test
+    void wrongKeyFails() {
+        String encrypted = new KeyFileStringEncryptor(new SecretKeySpec(key, "AES"), "base64")
+                .encrypt("value-to-encrypt");
+        KeyFileStringEncryptor encryptor = new KeyFileStringEncryptor(new SecretKeySpec(new byte[32], "AES"),
+                "base64");
+
+        assertThrows(EncryptionOperationNotPossibleException.class, () -> encryptor.decrypt(encrypted));
+    }
+
+    @Test
+    void keyIsReadFromKeyStore() throws IOException, GeneralSecurityException {
+        char[] password = "super_secret_passw0rd".toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, password);
+        keyStore.setEntry("jasypt", new KeyStore.SecretKeyEntry(new SecretKeySpec(key, "AES")),
+                new KeyStore.PasswordProtection(password));
+        File file = new File(directory, "keystore.p12");
+        try (OutputStream stream = Files.newOutputStream(file.toPath())) {
+            keyStore.store(stream, password);
+        }
+
+        SecretKey read = KeyFileStringEncryptor.readKeyStore(file, "PKCS12", "jasypt", "super_secret_passw0rd");
+
+        assertArrayEquals(key, read.getEncoded());
+        assertThrows(EncryptionInitializationException.class,
+                () -> KeyFileStringEncryptor.readKeyStore(file, "PKCS12", "other", "super_secret_passw0rd"));
+        assertThrows(EncryptionInitializationException.class,
+                () -> KeyFileStringEncryptor.readKeyStore(file, "PKCS12", "jasypt", "wrong"));
+    }
+}
@@ -0,0 +1,149 @@
+package dev.haeusler.mojo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyDecryptingPropertiesTest {
+
+    private final AtomicInteger decryptions = new AtomicInteger();
+
+    private final UnaryOperator<String> decryption = value -> {
+        decryptions.incrementAndGet();
+        return value.substring(4, value.length() - 1).toUpperCase();
+    };
+
+    private LazyDecryptingProperties properties() {
+        Properties properties = new Properties();
+        properties.setProperty("a", "ENC(a)");
+        properties.setProperty("b", "ENC(b)");
+        properties.setProperty("plain", "value");
+
+        LazyDecryptingProperties lazy = new LazyDecryptingProperties(properties);
+        lazy.defer("a", decryption);
+        lazy.defer("b", decryption);
+        return lazy;
+    }
+
+    @Test
+    void onlyAccessedValuesAreDecrypted() {
+        LazyDecryptingProperties properties = properties();
+
+        assertEquals("A", properties.getProperty("a"));
+        assertEquals("A", properties.get("a"));
+        assertEquals("value", properties.getProperty("plain"));
+
+        assertEquals(1, decryptions.get());
+        assertEquals("ENC(b)", properties.getRaw("b"));
+    }
+
+    @Test
+    void copyingDecryptsAllValues() {
+        Map<Object, Object> copy = new HashMap<>(properties());
+
+        assertEquals(Map.of("a", "A", "b", "B", "plain", "value"), copy);
+        assertEquals(2, decryptions.get());
+    }
+
+    @Test
+    void listingKeysDecryptsNothing() {
+        LazyDecryptingProperties properties = properties();
+
+        assertEquals(Set.of("a", "b", "plain"), properties.stringPropertyNames());
+        assertEquals(Set.of("a", "b", "plain"), new HashSet<>(Collections.list(properties.propertyNames())));
+        assertEquals(Set.of("a", "b", "plain"), properties.keySet());
+        Map<Object, Object> accessed = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+            if (entry.getKey().equals("a")) {
+                accessed.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        assertEquals(Map.of("a", "A"), accessed);
+        assertEquals(1, decryptions.get());
+    }
+
+    @Test
+    void copyingIntoPropertiesDecryptsAllValues() {
+        LazyDecryptingProperties properties = properties();
+        Properties copy = new Properties();
+        copy.putAll(properties);
+
+        assertEquals("A", copy.getProperty("a"));
+        assertEquals("B", copy.getProperty("b"));
+        assertEquals(2, decryptions.get());
+        assertEquals(0, properties.getDeferredCount());
+    }
+
+    @Test
+    void printingAndSearchingValuesSeeDecryptedValues() {
+        assertFalse(properties().toString().contains("ENC("));
+        assertTrue(properties().containsValue("B"));
+    }
+
+    @Test
+    void replacedValuesAreNotDecrypted() {
+        LazyDecryptingProperties properties = properties();
+        properties.setProperty("a", "ENC(other)");
+
+        assertEquals("ENC(other)", properties.getProperty("a"));
+        assertEquals(0, decryptions.get());
+    }
+
+    @Test
+    void concurrentAccessDecryptsOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        LazyDecryptingProperties properties = new LazyDecryptingProperties(new Properties());
+        properties.setProperty("a", "ENC(a)");
+        properties.defer("a", value -> {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return decryption.apply(value);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> values = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                values.add(executor.submit(() -> properties.getProperty("a")));
+            }
+            started.countDown();
+            for (Future<String> value : values) {
+                assertEquals("A", value.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, decryptions.get());
+    }
+
+    @Test
+    void failedDecryptionNamesProperty() {
+        LazyDecryptingProperties properties = new LazyDecryptingProperties(new Properties());
+        properties.setProperty("a", "ENC(a)");
+        properties.defer("a", value -> {
+            throw new IllegalArgumentException("wrong password");
+        });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> properties.getProperty("a"));
+        assertEquals("Cannot decrypt property a: wrong password", e.getMessage());
+    }
+}
@@ -0,0 +1,67 @@
+package dev.haeusler.mojo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentDecryptionCacheTest {
+
+    private static final Map<String, String> DECRYPTED_VALUES = Map.of("ENC(a)", "value-a", "ENC(b)", "value-b");
+
+    @TempDir
+    File directory;
+
+    private File file() {
+        return new File(directory, "config.properties");
+    }
+
+    private PersistentDecryptionCache cache(String configuration, String password) {
+        return new PersistentDecryptionCache(new File(directory, "cache"), configuration, password, 1000);
+    }
+
+    @Test
+    public void unchangedFileIsLoadedFromCache() throws IOException {
+        cache("config", "secret").store(file(), "digest", DECRYPTED_VALUES);
+
+        assertEquals(DECRYPTED_VALUES, cache("config", "secret").load(file(), "digest"));
+    }
+
+    @Test
+    public void changedFileIsNotLoadedFromCache() throws IOException {
+        cache("config", "secret").store(file(), "digest", DECRYPTED_VALUES);
+
+        assertTrue(cache("config", "secret").load(file(), "other-digest").isEmpty());
+    }
+
+    @Test
+    public void changedConfigurationIsNotLoadedFromCache() throws IOException {
+        cache("config", "secret").store(file(), "digest", DECRYPTED_VALUES);
+
+        assertTrue(cache("other-config", "secret").load(file(), "digest").isEmpty());
+    }
+
+    @Test
+    public void changedPasswordIsNotLoadedFromCache() throws IOException {
+        cache("config", "secret").store(file(), "digest", DECRYPTED_VALUES);
+
+        assertTrue(cache("config", "other-secret").load(file(), "digest").isEmpty());
+    }
+
+    @Test
+    public void decryptedValuesAreNotStoredInClearText() throws IOException {
+        cache("config", "secret").store(file(), "digest", DECRYPTED_VALUES);
+
+        for (File entry : new File(directory, "cache").listFiles()) {
+            String content = Files.readString(entry.toPath(), StandardCharsets.ISO_8859_1);
+            assertFalse(content.contains("value-a"));
+            assertFalse(content.contains("secret"));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package dev.haeusler.mojo;
+
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.jasypt.iv.RandomIvGenerator;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertyDecryptorTest {
+
+    private static PooledPBEStringEncryptor encryptor;
+
+    private static List<String> encryptedValues;
+
+    @BeforeAll
+    static void setUp() {
+        encryptor = new PooledPBEStringEncryptor();
+        encryptor.setPoolSize(4);
+        encryptor.setKeyObtentionIterations(1000);
+        encryptor.setAlgorithm("PBEWithHMACSHA512AndAES_256");
+        encryptor.setIvGenerator(new RandomIvGenerator());
+        encryptor.setPassword("super_secret_passw0rd");
+
+        encryptedValues = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            encryptedValues.add(PropertyValueEncryptionUtils.encrypt("value-" + i, encryptor));
+        }
+    }
+
+    @Test
+    public void valuesAreDecryptedSequentially() throws InterruptedException {
+        Map<String, String> decrypted = new PropertyDecryptor(encryptor, 1).decrypt(encryptedValues);
+
+        assertDecryptedInOrder(decrypted);
+    }
+
+    @Test
+    public void valuesAreDecryptedInParallel() throws InterruptedException {
+        Map<String, String> decrypted = new PropertyDecryptor(encryptor, 4).decrypt(encryptedValues);
+
+        assertDecryptedInOrder(decrypted);
+    }
+
+    @Test
+    public void duplicateValuesAreDecryptedOnce() throws InterruptedException {
+        List<String> values = List.of(encryptedValues.get(0), encryptedValues.get(1), encryptedValues.get(0));
+
+        Map<String, String> decrypted = new PropertyDecryptor(encryptor, 4).decrypt(values);
+
+        assertEquals(2, decrypted.size());
+        assertEquals("value-0", decrypted.get(encryptedValues.get(0)));
+        assertEquals("value-1", decrypted.get(encryptedValues.get(1)));
+    }
+
+    @Test
+    public void failedDecryptionIsPropagated() {
+        List<String> values = List.of(encryptedValues.get(0), "ENC(bm90LWVuY3J5cHRlZA==)");
+
+        assertThrows(RuntimeException.class, () -> new PropertyDecryptor(encryptor, 4).decrypt(values));
+    }
+
+    private static void assertDecryptedInOrder(Map<String, String> decrypted) {
+        assertEquals(encryptedValues, new ArrayList<>(decrypted.keySet()));
+        for (int i = 0; i < encryptedValues.size(); i++) {
+            assertEquals("value-" + i, decrypted.get(encryptedValues.get(i)));
+        }
+    }
+}
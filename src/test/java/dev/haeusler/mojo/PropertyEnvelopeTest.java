@@ -0,0 +1,59 @@
+package dev.haeusler.mojo;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PropertyEnvelopeTest {
+
+    private static final String password = "super_secret_passw0rd";
+
+    @Test
+    void encryptsWithNewNoncePerValue() throws GeneralSecurityException {
+        PropertyEnvelope envelope = PropertyEnvelope.create(password, 1000);
+
+        String first = envelope.encrypt("välue");
+        String second = envelope.encrypt("välue");
+
+        assertTrue(PropertyEnvelope.isEnvelopeValue(first));
+        assertNotEquals(first, second);
+        assertEquals("välue", envelope.decrypt(first));
+        assertEquals("välue", PropertyEnvelope.parse(envelope.header(), password).decrypt(second));
+    }
+
+    @Test
+    void rejectsWrongPassword() throws GeneralSecurityException {
+        PropertyEnvelope envelope = PropertyEnvelope.create(password, 1000);
+        String value = envelope.encrypt("value");
+
+        assertThrows(GeneralSecurityException.class,
+                () -> PropertyEnvelope.parse(envelope.header(), "other").decrypt(value));
+    }
+
+    @Test
+    void rejectsValuesOfOtherHeaders() throws GeneralSecurityException {
+        PropertyEnvelope envelope = PropertyEnvelope.create(password, 1000);
+        String value = envelope.encrypt("value");
+        String header = envelope.header().replace(":1000:", ":1001:");
+
+        assertThrows(GeneralSecurityException.class, () -> PropertyEnvelope.parse(header, password).decrypt(value));
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        assertThrows(IllegalArgumentException.class, () -> PropertyEnvelope.parse("pbkdf2-sha256:1000", password));
+        assertThrows(IllegalArgumentException.class, () -> PropertyEnvelope.parse("scrypt:1000:AAAA", password));
+        assertThrows(IllegalArgumentException.class, () -> PropertyEnvelope.parse("pbkdf2-sha256:x:AAAA", password));
+    }
+
+    @Test
+    void rejectsInvalidIterations() {
+        for (String iterations : new String[]{"0", "-1", String.valueOf(Integer.MAX_VALUE)}) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> PropertyEnvelope.parse("pbkdf2-sha256:" + iterations + ":AAAA", password));
+            assertTrue(e.getMessage().startsWith("Invalid number of iterations " + iterations), e.getMessage());
+        }
+    }
+}
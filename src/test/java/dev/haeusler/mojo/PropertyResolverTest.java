@@ -4,7 +4,12 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 public class PropertyResolverTest {
     private final PropertyResolver resolver = new PropertyResolver();
@@ -98,6 +103,19 @@ public class PropertyResolverTest {
         assertNull(value6);
     }
 
+    @Test
+    public void repeatedPlaceholderIsNotCircular() {
+        Properties properties = new Properties();
+        properties.setProperty("host", "${name}.${domain}");
+        properties.setProperty("name", "localhost");
+        properties.setProperty("domain", "local");
+        properties.setProperty("urls", "http://${host}/,https://${host}/");
+
+        String value = resolver.getPropertyValue("urls", properties, new Properties());
+
+        assertEquals("http://localhost.local/,https://localhost.local/", value);
+    }
+
     @Test
     public void valueIsObtainedFromSystemProperty() {
         Properties saved = System.getProperties();
@@ -128,8 +146,146 @@ public class PropertyResolverTest {
         assertEquals("env.value", value);
     }
 
+    @Test
+    public void onlyReferencedEnvironmentVariablesAreLookedUp() {
+        List<String> lookups = new ArrayList<>();
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${env.PROPERTY}");
+        properties.setProperty("p2", "${env.OTHER}");
+
+        String value = resolver.getPropertyValue("p1", properties, name -> {
+            lookups.add(name);
+            return "env.value";
+        });
+
+        assertEquals("env.value", value);
+        assertEquals(List.of("PROPERTY"), lookups);
+    }
+
     @Test
     public void missingPropertyIsTolerated() {
-        assertEquals("", resolver.getPropertyValue("non-existent", new Properties(), null));
+        assertEquals("", resolver.getPropertyValue("non-existent", new Properties(), (Properties) null));
+    }
+
+    @Test
+    public void nestedPlaceholdersAreExpandedInPlace() {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "[${p2}|${p3}]");
+        properties.setProperty("p2", "<${p4}${unknown}>");
+        properties.setProperty("p3", "c");
+        properties.setProperty("p4", "d");
+
+        assertEquals("[<d${unknown}>|c]", resolver.getPropertyValue("p1", properties, new Properties()));
+    }
+
+    @Test
+    public void deepPlaceholderChainIsResolved() {
+        Properties properties = new Properties();
+        for (int i = 0; i < 10_000; i++) {
+            properties.setProperty("p" + i, i + ",${p" + (i + 1) + "}");
+        }
+        properties.setProperty("p10000", "end");
+
+        String value = resolver.getPropertyValue("p0", properties, new Properties());
+
+        assertTrue(value.startsWith("0,1,2,"));
+        assertTrue(value.endsWith("9999,end"));
+    }
+
+    @Test
+    public void widePlaceholderListIsResolved() {
+        Properties properties = new Properties();
+        StringBuilder value = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            properties.setProperty("p" + i, String.valueOf(i));
+            value.append("${p").append(i).append("} ");
+            expected.append(i).append(' ');
+        }
+        properties.setProperty("wide", value.toString());
+
+        assertEquals(expected.toString(), resolver.getPropertyValue("wide", properties, new Properties()));
+    }
+
+    @Test
+    public void allValuesAreResolvedAtOnce() {
+        Properties properties = new Properties();
+        properties.setProperty("hostname", "localhost");
+        properties.setProperty("port", "8080");
+        properties.setProperty("base.url", "http://${hostname}:${port}/");
+        properties.setProperty("api.url", "${base.url}api");
+        properties.setProperty("docs.url", "${base.url}docs${unknown}");
+        properties.setProperty("p4", "${malformed");
+
+        Map<String, String> values = resolver.getPropertyValues(properties, new Properties());
+
+        assertEquals(properties.size(), values.size());
+        for (String key : properties.stringPropertyNames()) {
+            assertEquals(resolver.getPropertyValue(key, properties, new Properties()), values.get(key));
+        }
+        assertEquals("http://localhost:8080/api", values.get("api.url"));
+    }
+
+    @Test
+    public void sharedValueIsLookedUpOnce() {
+        Map<String, Integer> lookups = new HashMap<>();
+        Properties properties = new Properties() {
+            @Override
+            public String getProperty(String key) {
+                lookups.merge(key, 1, Integer::sum);
+                return super.getProperty(key);
+            }
+        };
+        properties.setProperty("base.url", "http://localhost/");
+        for (int i = 0; i < 100; i++) {
+            properties.setProperty("url" + i, "${base.url}" + i);
+        }
+
+        Map<String, String> values = resolver.getPropertyValues(properties, new Properties());
+
+        assertEquals("http://localhost/99", values.get("url99"));
+        assertEquals(1, lookups.get("base.url"));
+    }
+
+    @Test
+    public void allCircularDefinitionsAreReported() {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${p2}");
+        properties.setProperty("p2", "value");
+        properties.setProperty("p5", "${p5}");
+        properties.setProperty("p6", "${p7}");
+        properties.setProperty("p7", "${p6}");
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> resolver.getPropertyValues(properties, new Properties()));
+
+        assertTrue(e.getMessage().contains("p5=${p5} -> p5=${p5}"));
+        assertTrue(e.getMessage().contains("p6") && e.getMessage().contains("p7"));
+    }
+
+    @Test
+    public void dependentsAreFoundTransitively() {
+        Properties properties = new Properties();
+        properties.setProperty("loaded", "value");
+        properties.setProperty("direct", "${loaded}");
+        properties.setProperty("indirect", "x-${direct}-${other}");
+        properties.setProperty("other", "${unrelated}");
+        properties.setProperty("cycle", "${cycle}-${loaded}");
+
+        assertEquals(Set.of("loaded", "direct", "indirect", "cycle"),
+                resolver.getDependents(List.of("loaded"), properties));
+    }
+
+    @Test
+    public void expansionsAreCounted() {
+        Properties properties = new Properties();
+        properties.setProperty("p1", "${p2}-${p2}");
+        properties.setProperty("p2", "${p3}");
+        properties.setProperty("p3", "value");
+
+        assertEquals("value-value", resolver.getPropertyValue("p1", properties, new Properties()));
+
+        assertEquals(3, resolver.getExpandedPlaceholders());
+        assertEquals(2, resolver.getMaxDepth());
     }
 }
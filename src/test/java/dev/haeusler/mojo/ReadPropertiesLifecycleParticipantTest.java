@@ -0,0 +1,147 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReadPropertiesLifecycleParticipantTest {
+
+    private static final String encryptedValue = "ENC(jMI5t0UiN2UJ3do70j/+GkHHUmAuOzgEHUwXvvWSXbY=)";
+
+    private static final String decryptedValue = "value-to-encrypt";
+
+    @TempDir
+    File directory;
+
+    private final MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+
+    private final MavenProject project = new MavenProject();
+
+    private MavenSession session(String files) throws IOException {
+        return session(request, project, files);
+    }
+
+    private MavenSession session(MavenExecutionRequest request, MavenProject project, String files)
+            throws IOException {
+        Files.writeString(new File(directory, "config.properties").toPath(),
+                "secret=" + encryptedValue + "\nurl=http://${host}/\nhost=localhost");
+
+        Properties userProperties = new Properties();
+        if (files != null) {
+            userProperties.setProperty("jasypt.extension.files", files);
+        }
+        userProperties.setProperty("jasypt.encryptor.password", "super_secret_passw0rd");
+        userProperties.setProperty("jasypt.extension.saltGeneratorClassName", "org.jasypt.salt.ZeroSaltGenerator");
+        userProperties.setProperty("jasypt.extension.ivGeneratorClassName",
+                "dev.haeusler.mojo.FixedStringIvGenerator");
+        request.setUserProperties(userProperties);
+        request.setMultiModuleProjectDirectory(directory);
+
+        MavenSession session = mock(MavenSession.class);
+        when(session.getRequest()).thenReturn(request);
+        when(session.getUserProperties()).thenReturn(request.getUserProperties());
+        when(session.getSystemProperties()).thenReturn(new Properties());
+        when(session.getProjects()).thenReturn(List.of(project));
+        return session;
+    }
+
+    @Test
+    void propertiesAreAddedToBuildingRequestAtSessionStart() throws IOException, MavenExecutionException {
+        MavenSession session = session("config.properties");
+        ReadPropertiesLifecycleParticipant participant = new ReadPropertiesLifecycleParticipant();
+
+        participant.afterSessionStart(session);
+
+        Properties buildingProperties = request.getProjectBuildingRequest().getUserProperties();
+        assertEquals(decryptedValue, buildingProperties.getProperty("secret"));
+        assertEquals("http://localhost/", buildingProperties.getProperty("url"));
+        assertEquals("config.properties", buildingProperties.getProperty("jasypt.extension.files"));
+        // not passed on to forked JVMs
+        assertNull(session.getUserProperties().getProperty("secret"));
+
+        participant.afterProjectsRead(session);
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+    }
+
+    @Test
+    void propertiesAreAddedToProjectsAsBuildExtension() throws IOException, MavenExecutionException {
+        MavenSession session = session(new File(directory, "config.properties").getAbsolutePath());
+
+        new ReadPropertiesLifecycleParticipant().afterProjectsRead(session);
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+    }
+
+    @Test
+    void passwordIsNotAdded() throws IOException, MavenExecutionException {
+        Files.writeString(new File(directory, "password.properties").toPath(),
+                "jasypt.encryptor.password=super_secret_passw0rd");
+        MavenSession session = session("password.properties,config.properties");
+        request.getUserProperties().remove("jasypt.encryptor.password");
+        ReadPropertiesLifecycleParticipant participant = new ReadPropertiesLifecycleParticipant();
+
+        participant.afterSessionStart(session);
+        participant.afterProjectsRead(session);
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+        assertNull(project.getProperties().getProperty("jasypt.encryptor.password"));
+        assertNull(request.getProjectBuildingRequest().getUserProperties().getProperty("jasypt.encryptor.password"));
+    }
+
+    @Test
+    void propertiesAreReadForEverySession() throws IOException, MavenExecutionException {
+        ReadPropertiesLifecycleParticipant participant = new ReadPropertiesLifecycleParticipant();
+        MavenSession first = session("config.properties");
+        participant.afterSessionStart(first);
+        participant.afterProjectsRead(first);
+        participant.afterSessionEnd(first);
+
+        Files.writeString(new File(directory, "other.properties").toPath(), "secret=other");
+        MavenExecutionRequest otherRequest = new DefaultMavenExecutionRequest();
+        MavenProject otherProject = new MavenProject();
+        MavenSession second = session(otherRequest, otherProject, "other.properties");
+        otherRequest.getUserProperties().setProperty("jasypt.extension.keyPrefix", "other.");
+        participant.afterSessionStart(second);
+        participant.afterProjectsRead(second);
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+        assertEquals("other", otherProject.getProperties().getProperty("other.secret"));
+        assertNull(otherProject.getProperties().getProperty("secret"));
+        assertEquals("other", otherRequest.getProjectBuildingRequest().getUserProperties().getProperty("other.secret"));
+    }
+
+    @Test
+    void nothingIsReadWithoutConfiguration() throws IOException, MavenExecutionException {
+        MavenSession session = session(null);
+        ReadPropertiesLifecycleParticipant participant = new ReadPropertiesLifecycleParticipant();
+
+        participant.afterSessionStart(session);
+        participant.afterProjectsRead(session);
+
+        assertNull(session.getUserProperties().getProperty("secret"));
+        assertNull(project.getProperties().getProperty("secret"));
+    }
+
+    @Test
+    void missingFileFails() throws IOException {
+        MavenSession session = session("missing.properties");
+
+        assertThrows(MavenExecutionException.class,
+                () -> new ReadPropertiesLifecycleParticipant().afterSessionStart(session));
+    }
+}
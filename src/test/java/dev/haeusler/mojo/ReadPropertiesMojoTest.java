@@ -0,0 +1,514 @@
+package dev.haeusler.mojo;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadPropertiesMojoTest {
+
+    private static final String jasyptEncryptorPassword = "super_secret_passw0rd";
+
+    private static final String encryptedValue = "ENC(jMI5t0UiN2UJ3do70j/+GkHHUmAuOzgEHUwXvvWSXbY=)";
+
+    private static final String decryptedValue = "value-to-encrypt";
+
+    @TempDir
+    File directory;
+
+    private final MavenProject project = new MavenProject();
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private ReadPropertiesMojo mojo() {
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo();
+
+        // make sure we always have the same encrypted value
+        mojo.setSaltGeneratorClassName("org.jasypt.salt.ZeroSaltGenerator");
+        mojo.setIvGeneratorClassName("dev.haeusler.mojo.FixedStringIvGenerator");
+
+        mojo.setProject(project);
+        mojo.setLog(mock(Log.class));
+        project.getProperties().setProperty("jasypt.encryptor.password", jasyptEncryptorPassword);
+        return mojo;
+    }
+
+    private File propertiesFile(String content) throws IOException {
+        File file = new File(directory, "config.properties");
+        Files.writeString(file.toPath(), content);
+        return file;
+    }
+
+    @Test
+    public void propertiesAreResolvedAndDecrypted() throws IOException, MojoExecutionException, MojoFailureException {
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile("secret=" + encryptedValue + "\nurl=http://${host}/\nhost=localhost")});
+
+        mojo.execute();
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+        assertEquals("http://localhost/", project.getProperties().getProperty("url"));
+    }
+
+    @Test
+    public void onlyLoadedPropertiesAndTheirDependentsAreProcessed()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        project.getProperties().setProperty("endpoint", "${url}api");
+        project.getProperties().setProperty("unrelated", "${basedir}");
+        project.getProperties().setProperty("pom.secret", encryptedValue);
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile("url=http://${host}/\nhost=localhost")});
+
+        mojo.execute();
+
+        assertEquals("http://localhost/api", project.getProperties().getProperty("endpoint"));
+        assertEquals("${basedir}", project.getProperties().getProperty("unrelated"));
+        assertEquals(encryptedValue, project.getProperties().getProperty("pom.secret"));
+    }
+
+    @Test
+    public void keysAreFilteredByPatterns() throws IOException, MojoExecutionException, MojoFailureException {
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile("db.url=jdbc:${app.db.host}\ndb.host=localhost\ndb.password="
+                + encryptedValue + "\nmail.host=smtp")});
+        mojo.setIncludeKeys(new String[]{"db.*"});
+        mojo.setExcludeKeys(new String[]{"*.password"});
+        mojo.setKeyPrefix("app.");
+
+        mojo.execute();
+
+        assertEquals("jdbc:localhost", project.getProperties().getProperty("app.db.url"));
+        assertNull(project.getProperties().getProperty("app.db.password"));
+        assertNull(project.getProperties().getProperty("app.mail.host"));
+    }
+
+    @Test
+    public void environmentVariablesAreLookedUpOnDemand()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        List<String> lookups = new ArrayList<>();
+        ReadPropertiesMojo mojo = new ReadPropertiesMojo() {
+            @Override
+            String getSystemEnvVar(String name) {
+                lookups.add(name);
+                return "/home/user";
+            }
+        };
+        mojo.setProject(project);
+        mojo.setLog(mock(Log.class));
+        project.getProperties().setProperty("jasypt.encryptor.password", jasyptEncryptorPassword);
+        mojo.setFiles(new File[]{propertiesFile("home=${env.HOME}\nunused=${user.home}")});
+
+        mojo.execute();
+
+        assertEquals("/home/user", project.getProperties().getProperty("home"));
+        assertEquals(List.of("HOME"), lookups);
+    }
+
+    @Test
+    public void keyPrefixIsApplied() throws IOException, MojoExecutionException, MojoFailureException {
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile("secret=" + encryptedValue)});
+        mojo.setKeyPrefix("prefix.");
+
+        mojo.execute();
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("prefix.secret"));
+        assertNull(project.getProperties().getProperty("secret"));
+    }
+
+    @Test
+    public void decryptedValuesArePersisted() throws IOException, MojoExecutionException, MojoFailureException {
+        File cacheDirectory = new File(directory, "cache");
+        File file = propertiesFile("secret=" + encryptedValue);
+
+        for (int i = 0; i < 2; i++) {
+            ReadPropertiesMojo mojo = mojo();
+            mojo.setFiles(new File[]{file});
+            mojo.setPersistentCache(true);
+            mojo.setPersistentCacheDirectory(cacheDirectory);
+            project.getProperties().remove("secret");
+
+            mojo.execute();
+
+            assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+        }
+        assertEquals(2, cacheDirectory.list().length);
+    }
+
+    @Test
+    public void envelopeValuesAreDecrypted()
+            throws IOException, GeneralSecurityException, MojoExecutionException, MojoFailureException {
+        PropertyEnvelope envelope = PropertyEnvelope.create(jasyptEncryptorPassword, 1000);
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile(PropertyEnvelope.HEADER_KEY + "=" + envelope.header()
+                + "\nsecret=" + envelope.encrypt(decryptedValue) + "\nother=" + encryptedValue)});
+
+        mojo.execute();
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+        assertEquals(decryptedValue, project.getProperties().getProperty("other"));
+        assertNull(project.getProperties().getProperty(PropertyEnvelope.HEADER_KEY));
+    }
+
+    @Test
+    public void envelopeValuesWithWrongPasswordFail() throws IOException, GeneralSecurityException {
+        PropertyEnvelope envelope = PropertyEnvelope.create("other", 1000);
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile(PropertyEnvelope.HEADER_KEY + "=" + envelope.header()
+                + "\nsecret=" + envelope.encrypt(decryptedValue))});
+
+        assertThrows(MojoExecutionException.class, mojo::execute);
+    }
+
+    @Test
+    public void valuesAreDecryptedOnFirstAccess()
+            throws IOException, GeneralSecurityException, MojoExecutionException, MojoFailureException {
+        PropertyEnvelope envelope = PropertyEnvelope.create(jasyptEncryptorPassword, 1000);
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile(PropertyEnvelope.HEADER_KEY + "=" + envelope.header()
+                + "\nsecret=" + envelope.encrypt(decryptedValue) + "\nother=" + encryptedValue)});
+        mojo.setLazyDecryption(true);
+
+        mojo.execute();
+
+        LazyDecryptingProperties properties = (LazyDecryptingProperties) project.getProperties();
+        assertEquals(2, properties.getDeferredCount());
+        assertEquals(encryptedValue, properties.getRaw("other"));
+
+        assertEquals(decryptedValue, properties.getProperty("other"));
+        assertEquals(1, properties.getDeferredCount());
+        assertEquals(decryptedValue, properties.getProperty("secret"));
+        assertEquals(0, properties.getDeferredCount());
+    }
+
+    @Test
+    public void copyingLazilyDecryptedPropertiesDecryptsAllValues()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile("secret=" + encryptedValue + "\nother=" + encryptedValue)});
+        mojo.setLazyDecryption(true);
+        mojo.execute();
+
+        // a plugin listing the properties decrypts nothing
+        assertTrue(project.getProperties().stringPropertyNames().contains("secret"));
+        assertEquals(2, ((LazyDecryptingProperties) project.getProperties()).getDeferredCount());
+
+        // a plugin copying the properties decrypts all of them
+        Properties copy = new Properties();
+        copy.putAll(project.getProperties());
+
+        assertEquals(decryptedValue, copy.getProperty("secret"));
+        assertEquals(decryptedValue, copy.getProperty("other"));
+        assertEquals(0, ((LazyDecryptingProperties) project.getProperties()).getDeferredCount());
+    }
+
+    @Test
+    public void wholeFileEncryptedPropertiesAreDecrypted()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        File file = propertiesFile("secret=value\nnested=" + encryptedValue);
+        EncryptWholeFileMojo encryptMojo = new EncryptWholeFileMojo();
+        encryptMojo.setJasyptEncryptorPassword(jasyptEncryptorPassword);
+        encryptMojo.setKeyObtentionIteration(1000);
+        encryptMojo.setFiles(new File[]{file});
+        encryptMojo.setLog(mock(Log.class));
+        encryptMojo.execute();
+
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{new File(directory, "config.properties.enc")});
+        mojo.execute();
+
+        assertEquals("value", project.getProperties().getProperty("secret"));
+        assertEquals(decryptedValue, project.getProperties().getProperty("nested"));
+    }
+
+    @Test
+    public void filesAreReadConcurrentlyWithPasswordFromEarlierFile()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        EncryptWholeFileMojo encryptMojo = new EncryptWholeFileMojo();
+        encryptMojo.setJasyptEncryptorPassword(jasyptEncryptorPassword);
+        encryptMojo.setKeyObtentionIteration(1000);
+        encryptMojo.setFiles(new File[]{propertiesFile("secret=value\nshared=encrypted")});
+        encryptMojo.setLog(mock(Log.class));
+        encryptMojo.execute();
+        File password = new File(directory, "password.properties");
+        Files.writeString(password.toPath(), "jasypt.encryptor.password=" + jasyptEncryptorPassword + "\nshared=first");
+        File last = new File(directory, "last.properties");
+        Files.writeString(last.toPath(), "shared=last\nother=" + encryptedValue);
+        project.getProperties().remove("jasypt.encryptor.password");
+
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setQuiet(true);
+        mojo.setParallelUrlLoading(true);
+        mojo.setFiles(new File[]{password, new File(directory, "config.properties.enc"),
+                new File(directory, "missing.properties"), last});
+        mojo.execute();
+
+        assertEquals("value", project.getProperties().getProperty("secret"));
+        assertEquals("last", project.getProperties().getProperty("shared"));
+        assertEquals(decryptedValue, project.getProperties().getProperty("other"));
+    }
+
+    @Test
+    public void statsAreReported() throws IOException, MojoExecutionException, MojoFailureException {
+        File report = new File(directory, "target/stats.json");
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile("a=${b}\nb=${c}\nc=" + encryptedValue)});
+        mojo.setMemoizedResolution(true);
+        mojo.setStatsReport(true);
+        mojo.setStatsReportFile(report);
+
+        mojo.execute();
+
+        String json = Files.readString(report.toPath());
+        assertTrue(json.contains("\"entries\": 3"), json);
+        assertTrue(json.contains("\"expandedPlaceholders\": 2"), json);
+        assertTrue(json.contains("\"maxDepth\": 2"), json);
+        assertTrue(json.contains("\"values\": 3"), json);
+    }
+
+    @Test
+    public void poolIsSizedFromValuesProcessorsAndBuildThreads()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        int processors = Runtime.getRuntime().availableProcessors();
+        ReadPropertiesMojo mojo = mojo();
+        Log log = mock(Log.class);
+        mojo.setLog(log);
+        mojo.setPoolSize("auto");
+        mojo.setParallelDecryption(true);
+        mojo.setFiles(new File[]{propertiesFile("secret=" + encryptedValue + "\nother=" + encryptedValue)});
+
+        mojo.execute();
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("other"));
+        verify(log).info(startsWith("Sized the pool to " + Math.min(2, processors) + " encryptors for 2 values"));
+
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setDegreeOfConcurrency(processors);
+        MavenSession session = mock(MavenSession.class);
+        when(session.getRequest()).thenReturn(request);
+        mojo.setSession(session);
+        mojo.setPoolSize("auto");
+
+        assertEquals(1, mojo.getPoolSize());
+    }
+
+    @Test
+    public void invalidPoolSizeFails() throws IOException {
+        for (String poolSize : new String[]{"many", "0"}) {
+            ReadPropertiesMojo mojo = mojo();
+            mojo.setFiles(new File[]{propertiesFile("secret=" + encryptedValue)});
+            mojo.setPoolSize(poolSize);
+
+            MojoExecutionException e = assertThrows(MojoExecutionException.class, mojo::execute);
+            assertTrue(e.getMessage().startsWith("poolSize has to be"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void missingPasswordFails() throws IOException {
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile("secret=" + encryptedValue)});
+        project.getProperties().remove("jasypt.encryptor.password");
+
+        assertThrows(MojoExecutionException.class, mojo::execute);
+    }
+
+    @Test
+    public void unchangedInputsAreRestoredFromSnapshot()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        File snapshotFile = new File(directory, "snapshot");
+        File file = propertiesFile("secret=" + encryptedValue + "\nhome=${env.HOME}");
+        Map<String, String> environment = new HashMap<>(Map.of("HOME", "/home/user"));
+
+        List<Log> logs = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            if (i == 2) {
+                environment.put("HOME", "/home/other");
+            } else if (i == 3) {
+                // same length and modification time
+                long lastModified = file.lastModified();
+                Files.writeString(file.toPath(), "secret=" + encryptedValue + "\nhome=changed-abc");
+                assertTrue(file.setLastModified(lastModified));
+            }
+            ReadPropertiesMojo mojo = new ReadPropertiesMojo() {
+                @Override
+                String getSystemEnvVar(String name) {
+                    return environment.get(name);
+                }
+            };
+            mojo.setSaltGeneratorClassName("org.jasypt.salt.ZeroSaltGenerator");
+            mojo.setIvGeneratorClassName("dev.haeusler.mojo.FixedStringIvGenerator");
+            mojo.setJasyptEncryptorPassword(jasyptEncryptorPassword);
+            mojo.setProject(project);
+            Log log = mock(Log.class);
+            logs.add(log);
+            mojo.setLog(log);
+            mojo.setFiles(new File[]{file});
+            mojo.setIncremental(true);
+            mojo.setIncrementalSnapshotFile(snapshotFile);
+            project.getModel().setProperties(new Properties());
+
+            mojo.execute();
+
+            assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+        }
+
+        assertTrue(snapshotFile.isFile());
+        assertFalse(Files.readString(snapshotFile.toPath()).contains(decryptedValue));
+        verify(logs.get(0), never()).info(startsWith("Inputs unchanged"));
+        verify(logs.get(1)).info(startsWith("Inputs unchanged"));
+        verify(logs.get(2), never()).info(startsWith("Inputs unchanged"));
+        verify(logs.get(3), never()).info(startsWith("Inputs unchanged"));
+        assertEquals("changed-abc", project.getProperties().getProperty("home"));
+    }
+
+    @Test
+    public void plainPropertiesNeedNoPassword() throws IOException, MojoExecutionException, MojoFailureException {
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setFiles(new File[]{propertiesFile("url=http://${host}/\nhost=localhost")});
+        project.getProperties().remove("jasypt.encryptor.password");
+
+        mojo.execute();
+
+        assertEquals("http://localhost/", project.getProperties().getProperty("url"));
+    }
+
+    @Test
+    public void valuesAreDecryptedWithKeyFile() throws IOException, MojoExecutionException, MojoFailureException {
+        File keyFile = new File(directory, "jasypt.key");
+        Files.write(keyFile.toPath(), new byte[32]);
+        String encrypted = new KeyFileStringEncryptor(KeyFileStringEncryptor.readKeyFile(keyFile), "base64")
+                .encrypt(decryptedValue);
+        ReadPropertiesMojo mojo = mojo();
+        mojo.setKeyFile(keyFile);
+        mojo.setFiles(new File[]{propertiesFile("secret=ENC(" + encrypted + ")")});
+        project.getProperties().remove("jasypt.encryptor.password");
+
+        mojo.execute();
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+    }
+
+    @Test
+    public void propertiesAreAddedToProjectAtOnce()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        ReadPropertiesMojo mojo = mojo();
+        Properties projectProperties = new Properties() {
+            @Override
+            public synchronized Object put(Object key, Object value) {
+                throw new AssertionError("single property added: " + key);
+            }
+        };
+        projectProperties.putAll(project.getProperties());
+        project.getModel().setProperties(projectProperties);
+        mojo.setFiles(new File[]{propertiesFile("secret=" + encryptedValue + "\nurl=http://${host}/\nhost=localhost")});
+
+        mojo.execute();
+
+        assertEquals(decryptedValue, project.getProperties().getProperty("secret"));
+        assertEquals("http://localhost/", project.getProperties().getProperty("url"));
+    }
+
+    @Test
+    public void urlIsOpenedOnce() throws IOException, MojoExecutionException, MojoFailureException {
+        HttpServer server = server(Map.of("/config.properties", "host=localhost"), 0);
+        try {
+            ReadPropertiesMojo mojo = mojo();
+            mojo.setUrls(new String[]{url(server, "/config.properties")});
+
+            mojo.execute();
+
+            assertEquals("localhost", project.getProperties().getProperty("host"));
+            assertEquals(1, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void urlsAreFetchedConcurrentlyAndMergedInOrder()
+            throws IOException, MojoExecutionException, MojoFailureException {
+        HttpServer server = server(Map.of(
+                "/slow.properties", "first=slow\nshared=slow",
+                "/fast.properties", "second=fast\nshared=fast"), 200);
+        try {
+            ReadPropertiesMojo mojo = mojo();
+            mojo.setQuiet(true);
+            mojo.setParallelUrlLoading(true);
+            mojo.setUrls(new String[]{
+                    url(server, "/slow.properties"), url(server, "/missing.properties"), url(server, "/fast.properties")});
+
+            mojo.execute();
+
+            assertEquals("slow", project.getProperties().getProperty("first"));
+            assertEquals("fast", project.getProperties().getProperty("second"));
+            assertEquals("fast", project.getProperties().getProperty("shared"));
+            assertEquals(3, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * @param contents the response body for each path, other paths are answered with 404
+     * @param delay    milliseconds to wait before answering requests for paths starting with /slow
+     */
+    private HttpServer server(Map<String, String> contents, long delay) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            try {
+                if (path.startsWith("/slow")) {
+                    Thread.sleep(delay);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            String content = contents.get(path);
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                byte[] body = content.getBytes(StandardCharsets.ISO_8859_1);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    private static String url(HttpServer server, String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
@@ -0,0 +1,205 @@
+package dev.haeusler.mojo;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+import org.jasypt.salt.ZeroSaltGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.security.GeneralSecurityException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ReencryptMojoTest {
+
+    private static final String jasyptEncryptorPassword = "super_secret_passw0rd";
+
+    private static final String newJasyptEncryptorPassword = "new_secret_passw0rd";
+
+    private static final String encryptedValue = "ENC(jMI5t0UiN2UJ3do70j/+GkHHUmAuOzgEHUwXvvWSXbY=)";
+
+    private static final String decryptedValue = "value-to-encrypt";
+
+    @TempDir
+    File directory;
+
+    private ReencryptMojo mojo() {
+        ReencryptMojo mojo = new ReencryptMojo();
+
+        // make sure we always have the same encrypted value
+        mojo.setSaltGeneratorClassName("org.jasypt.salt.ZeroSaltGenerator");
+        mojo.setIvGeneratorClassName("dev.haeusler.mojo.FixedStringIvGenerator");
+
+        mojo.setJasyptEncryptorPassword(jasyptEncryptorPassword);
+        mojo.setNewJasyptEncryptorPassword(newJasyptEncryptorPassword);
+        mojo.setLog(mock(Log.class));
+        return mojo;
+    }
+
+    private File file(String name, String content) throws IOException {
+        File file = new File(directory, name);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.writeString(file.toPath(), content);
+        return file;
+    }
+
+    private static String decrypt(String value, String password) {
+        PooledPBEStringEncryptor encryptor = new PooledPBEStringEncryptor();
+        encryptor.setPoolSize(1);
+        encryptor.setAlgorithm("PBEWithHMACSHA512AndAES_256");
+        encryptor.setKeyObtentionIterations(100_000);
+        encryptor.setSaltGenerator(new ZeroSaltGenerator());
+        encryptor.setIvGenerator(new FixedStringIvGenerator());
+        encryptor.setPassword(password);
+        return PropertyValueEncryptionUtils.decrypt(value, encryptor);
+    }
+
+    @Test
+    void reencryptsFilesInDirectoryTree() throws IOException, MojoExecutionException, MojoFailureException {
+        File first = file("first.properties", "# comment\nplain=value\nsecret=" + encryptedValue + "\n");
+        File second = file("nested/second.properties", "other.secret = " + encryptedValue + "\n");
+        File excluded = file("nested/excluded.properties", "secret=" + encryptedValue + "\n");
+        file("notes.txt", "secret=" + encryptedValue + "\n");
+
+        ReencryptMojo mojo = mojo();
+        mojo.setDirectory(directory);
+        mojo.setExcludes(new String[]{"**/excluded.properties"});
+        mojo.setPoolSize(4);
+        mojo.execute();
+
+        String firstContent = Files.readString(first.toPath());
+        assertTrue(firstContent.startsWith("# comment\nplain=value\nsecret=ENC("));
+        String reencryptedValue = firstContent.substring(firstContent.indexOf("ENC("), firstContent.length() - 1);
+        assertNotEquals(encryptedValue, reencryptedValue);
+        assertEquals(decryptedValue, decrypt(reencryptedValue, newJasyptEncryptorPassword));
+        assertEquals("other.secret = " + reencryptedValue + "\n", Files.readString(second.toPath()));
+        assertEquals("secret=" + encryptedValue + "\n", Files.readString(excluded.toPath()));
+    }
+
+    @Test
+    void failsPerFile() throws IOException {
+        File good = file("good.properties", "secret=" + encryptedValue + "\n");
+        File bad = file("bad.properties", "secret=" + encryptedValue + "\nbroken=ENC(bm90IGVuY3J5cHRlZA==)\n");
+
+        ReencryptMojo mojo = mojo();
+        mojo.setFiles(new File[]{good, bad});
+
+        MojoFailureException exception = assertThrows(MojoFailureException.class, mojo::execute);
+        assertTrue(exception.getMessage().contains(bad.toString()));
+        assertFalse(exception.getMessage().contains(good.toString()));
+        assertNotEquals("secret=" + encryptedValue + "\n", Files.readString(good.toPath()));
+        assertEquals("secret=" + encryptedValue + "\nbroken=ENC(bm90IGVuY3J5cHRlZA==)\n",
+                Files.readString(bad.toPath()));
+    }
+
+    @Test
+    void reencryptsFilesInBatches() throws IOException, MojoExecutionException, MojoFailureException {
+        File first = file("first.properties", "secret=" + encryptedValue + "\n");
+        File second = file("second.properties", "secret=" + encryptedValue + "\nother=" + encryptedValue + "\n");
+        File third = file("third.properties", "plain=value\n");
+
+        ReencryptMojo mojo = mojo();
+        mojo.setFiles(new File[]{first, second, third});
+        mojo.setBatchSize(1);
+        mojo.execute();
+
+        assertEquals(decryptedValue, decrypt(load(first).getProperty("secret"), newJasyptEncryptorPassword));
+        assertEquals(decryptedValue, decrypt(load(second).getProperty("other"), newJasyptEncryptorPassword));
+        assertEquals("plain=value\n", Files.readString(third.toPath()));
+    }
+
+    @Test
+    void encryptionFailuresAreReportedPerFile() throws IOException {
+        File file = file("config.properties", "secret=" + encryptedValue + "\n");
+
+        ReencryptMojo mojo = mojo();
+        mojo.setFiles(new File[]{file});
+        mojo.setNewAlgorithm("PBEWithUnknownAlgorithm");
+
+        MojoFailureException exception = assertThrows(MojoFailureException.class, mojo::execute);
+        assertTrue(exception.getMessage().contains(file + ": 1 values could not be encrypted"),
+                exception.getMessage());
+        assertEquals("secret=" + encryptedValue + "\n", Files.readString(file.toPath()));
+    }
+
+    @Test
+    void equalValuesAreReencryptedOnTheirOwn() throws IOException, MojoExecutionException, MojoFailureException {
+        File first = file("first.properties", "secret=" + encryptedValue + "\nother=" + encryptedValue + "\n");
+        File second = file("second.properties", "secret=" + encryptedValue + "\n");
+
+        ReencryptMojo mojo = mojo();
+        mojo.setFiles(new File[]{first, second});
+        mojo.setNewSaltGeneratorClassName("org.jasypt.salt.RandomSaltGenerator");
+        mojo.setNewIvGeneratorClassName("org.jasypt.iv.RandomIvGenerator");
+        mojo.setNewKeyObtentionIteration(1000);
+        mojo.setPoolSize(4);
+        mojo.execute();
+
+        Properties firstProperties = load(first);
+        Set<String> values = new HashSet<>(List.of(firstProperties.getProperty("secret"),
+                firstProperties.getProperty("other"), load(second).getProperty("secret")));
+        assertEquals(3, values.size(), values.toString());
+        assertFalse(values.contains(encryptedValue), values.toString());
+    }
+
+    @Test
+    void appliesNewConfiguration() throws IOException, MojoExecutionException, MojoFailureException {
+        File file = file("config.properties", "secret=" + encryptedValue + "\n");
+
+        ReencryptMojo mojo = mojo();
+        mojo.setFiles(new File[]{file});
+        mojo.setNewJasyptEncryptorPassword(jasyptEncryptorPassword);
+        mojo.setNewStringOutputType("hexadecimal");
+        mojo.execute();
+
+        String content = Files.readString(file.toPath());
+        assertTrue(content.matches("secret=ENC\\([0-9A-F]+\\)\n"), content);
+    }
+
+    @Test
+    void migratesIntoEnvelopeAndBack()
+            throws IOException, GeneralSecurityException, MojoExecutionException, MojoFailureException {
+        File file = file("config.properties", "secret=" + encryptedValue + "\nplain=value\n");
+
+        ReencryptMojo mojo = mojo();
+        mojo.setFiles(new File[]{file});
+        mojo.setNewEnvelope(true);
+        mojo.setNewKeyObtentionIteration(1000);
+        mojo.execute();
+
+        Properties properties = load(file);
+        PropertyEnvelope envelope = PropertyEnvelope.parse(
+                properties.getProperty(PropertyEnvelope.HEADER_KEY), newJasyptEncryptorPassword);
+        assertEquals(decryptedValue, envelope.decrypt(properties.getProperty("secret")));
+        assertEquals("value", properties.getProperty("plain"));
+
+        mojo = mojo();
+        mojo.setFiles(new File[]{file});
+        mojo.setJasyptEncryptorPassword(newJasyptEncryptorPassword);
+        mojo.setNewJasyptEncryptorPassword(jasyptEncryptorPassword);
+        mojo.execute();
+
+        assertEquals("secret=" + encryptedValue + "\nplain=value\n", Files.readString(file.toPath()));
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream stream = new FileInputStream(file)) {
+            properties.load(stream);
+        }
+        return properties;
+    }
+}
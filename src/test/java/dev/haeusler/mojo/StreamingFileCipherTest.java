@@ -0,0 +1,80 @@
+package dev.haeusler.mojo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingFileCipherTest {
+
+    private static final String password = "super_secret_passw0rd";
+
+    private static byte[] encrypt(byte[] plaintext) throws IOException {
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+        StreamingFileCipher.encrypt(new ByteArrayInputStream(plaintext), ciphertext, password, 1000);
+        return ciphertext.toByteArray();
+    }
+
+    private static byte[] decrypt(byte[] ciphertext, String password) throws IOException {
+        try (InputStream stream = StreamingFileCipher.decrypt(new ByteArrayInputStream(ciphertext), password)) {
+            return stream.readAllBytes();
+        }
+    }
+
+    @Test
+    void roundTripsAcrossChunkBoundaries() throws IOException {
+        Random random = new Random(42);
+        for (int size : new int[]{0, 1, 64 * 1024 - 1, 64 * 1024, 64 * 1024 + 1, 3 * 64 * 1024 + 17}) {
+            byte[] plaintext = new byte[size];
+            random.nextBytes(plaintext);
+
+            assertArrayEquals(plaintext, decrypt(encrypt(plaintext), password), "size " + size);
+        }
+    }
+
+    @Test
+    void rejectsWrongPassword() throws IOException {
+        byte[] ciphertext = encrypt("key=value".getBytes());
+
+        assertThrows(IOException.class, () -> decrypt(ciphertext, "other"));
+    }
+
+    @Test
+    void rejectsTruncationAtChunkBoundary() throws IOException {
+        byte[] ciphertext = encrypt(new byte[2 * 64 * 1024 + 5]);
+        byte[] truncated = Arrays.copyOf(ciphertext, 36 + 2 * (64 * 1024 + 16));
+
+        assertThrows(IOException.class, () -> decrypt(truncated, password));
+    }
+
+    @Test
+    void rejectsModifiedContent() throws IOException {
+        byte[] ciphertext = encrypt("key=value".getBytes());
+        ciphertext[ciphertext.length - 1] ^= 1;
+
+        assertThrows(IOException.class, () -> decrypt(ciphertext, password));
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        assertThrows(IOException.class, () -> decrypt("key=value".getBytes(), password));
+    }
+
+    @Test
+    void rejectsInvalidIterations() throws IOException {
+        byte[] ciphertext = encrypt("key=value".getBytes());
+        for (int iterations : new int[]{0, -1, Integer.MAX_VALUE}) {
+            ByteBuffer.wrap(ciphertext).putInt(8, iterations);
+
+            IOException exception = assertThrows(IOException.class, () -> decrypt(ciphertext, password));
+            assertTrue(exception.getMessage().startsWith("Invalid number of iterations"), exception.getMessage());
+        }
+    }
+}
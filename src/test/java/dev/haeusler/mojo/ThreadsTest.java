@@ -0,0 +1,83 @@
+package dev.haeusler.mojo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadsTest {
+
+    private static final String THREADS = "dev/haeusler/mojo/Threads.class";
+
+    @Test
+    void resourcesAreReadOnPlatformThreadsWhenRunFromClasses() throws Exception {
+        // the Java 21 variant only replaces this class when running from the multi-release JAR
+        ExecutorService executor = Threads.newIoExecutor(2);
+        try {
+            assertEquals("read", executor.submit(() -> "read").get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void resourcesAreReadOnVirtualThreadsWhenRunFromMultiReleaseJar(@TempDir Path directory) throws Exception {
+        Path jar = multiReleaseJar(directory.resolve("threads.jar"));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()},
+                ClassLoader.getPlatformClassLoader())) {
+            Method newIoExecutor = loader.loadClass("dev.haeusler.mojo.Threads")
+                    .getDeclaredMethod("newIoExecutor", int.class);
+            newIoExecutor.setAccessible(true);
+            Method isVirtual = Thread.class.getMethod("isVirtual");
+
+            ExecutorService executor = (ExecutorService) newIoExecutor.invoke(null, 2);
+            try {
+                assertEquals(true, executor.submit(() -> isVirtual.invoke(Thread.currentThread())).get());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Packs both variants of {@link Threads} from the build output like the multi-release JAR of the plugin.
+     */
+    private static Path multiReleaseJar(Path jar) throws IOException {
+        File classes = new File(Threads.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+        Path variant = classes.toPath().resolve("META-INF/versions/21/" + THREADS);
+        assertTrue(Files.exists(variant), "Java 21 variant missing, the java21 profile was not active: " + variant);
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(new Attributes.Name("Multi-Release"), "true");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            copy(classes.toPath().resolve(THREADS), THREADS, out);
+            copy(variant, "META-INF/versions/21/" + THREADS, out);
+        }
+        return jar;
+    }
+
+    private static void copy(Path source, String name, JarOutputStream out) throws IOException {
+        out.putNextEntry(new JarEntry(name));
+        Files.copy(source, (OutputStream) out);
+        out.closeEntry();
+    }
+}
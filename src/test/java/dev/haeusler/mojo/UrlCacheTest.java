@@ -0,0 +1,100 @@
+package dev.haeusler.mojo;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlCacheTest {
+
+    @TempDir
+    File directory;
+
+    private HttpServer server;
+
+    private final List<Integer> responses = new ArrayList<>();
+
+    private String content = "host=localhost";
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/config.properties", exchange -> {
+            String etag = "\"" + content.hashCode() + "\"";
+            exchange.getResponseHeaders().add("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                responses.add(304);
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                responses.add(200);
+                byte[] body = content.getBytes(StandardCharsets.ISO_8859_1);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private URL url() throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + "/config.properties");
+    }
+
+    private static String read(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            return new String(in.readAllBytes(), StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    @Test
+    public void unchangedContentIsTakenFromCache() throws IOException {
+        UrlCache cache = new UrlCache(directory, false);
+
+        assertEquals("host=localhost", read(cache.open(url())));
+        assertEquals("host=localhost", read(cache.open(url())));
+        assertEquals(List.of(200, 304), responses);
+    }
+
+    @Test
+    public void changedContentIsFetched() throws IOException {
+        UrlCache cache = new UrlCache(directory, false);
+
+        read(cache.open(url()));
+        content = "host=example.com";
+
+        assertEquals("host=example.com", read(cache.open(url())));
+        assertEquals(List.of(200, 200), responses);
+    }
+
+    @Test
+    public void offlineModeUsesCacheOnly() throws IOException {
+        read(new UrlCache(directory, false).open(url()));
+
+        assertEquals("host=localhost", read(new UrlCache(directory, true).open(url())));
+        assertEquals(List.of(200), responses);
+    }
+
+    @Test
+    public void offlineModeFailsForUncachedUrl() {
+        assertThrows(IOException.class, () -> new UrlCache(directory, true).open(url()));
+        assertTrue(responses.isEmpty());
+    }
+}